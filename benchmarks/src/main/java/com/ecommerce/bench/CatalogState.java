@@ -0,0 +1,61 @@
+package com.ecommerce.bench;
+
+import com.ecommerce.ECommerceApplication;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+
+/**
+ * The application under the {@code bench} profile, on an embedded database seeded with
+ * {@link #products} products in {@link #categories} categories, shared by all threads of a
+ * trial. Override the sizes with {@code -Djmh.options="-p products=100000 -p categories=50"}.
+ * <p>
+ * Rate and concurrency limits are off, as every benchmark thread acts as one client.
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    @Param("10000")
+    public int products;
+
+    @Param("20")
+    public int categories;
+
+    ConfigurableApplicationContext context;
+    MockMvc mockMvc;
+
+    @Setup(Level.Trial)
+    public void start() {
+        // As arguments, so that they override the dev profile activated in application.properties
+        context = new SpringApplicationBuilder(ECommerceApplication.class).run(
+                "--spring.profiles.active=bench",
+                "--server.port=0",
+                "--app.bench.seed.products=" + products,
+                "--app.bench.seed.categories=" + categories,
+                "--app.rate-limit.enabled=false",
+                "--app.concurrency-limit.enabled=false",
+                "--logging.level.com.ecommerce=WARN");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context)
+                .apply(springSecurity())
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,50 @@
+package com.ecommerce.bench;
+
+import com.ecommerce.exception.ErrorResponse;
+import com.ecommerce.exception.GlobalExceptionHandler;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Renders a not-found error: once from the exception to the serialized body, and once for a
+ * whole request for a product that does not exist.
+ */
+@State(Scope.Benchmark)
+public class ErrorRenderingBenchmark extends BenchmarkDefaults {
+
+    private static final long MISSING_ID = 999_999_999L;
+
+    private GlobalExceptionHandler exceptionHandler;
+    private ObjectMapper objectMapper;
+    private MockHttpServletRequest request;
+
+    @Setup(Level.Trial)
+    public void load(CatalogState catalog) {
+        exceptionHandler = catalog.getBean(GlobalExceptionHandler.class);
+        objectMapper = catalog.getBean(ObjectMapper.class);
+        request = new MockHttpServletRequest("GET", "/api/v1/products/" + MISSING_ID);
+    }
+
+    @Benchmark
+    public byte[] renderNotFound() throws JsonProcessingException {
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleResourceNotFoundException(
+                ResourceNotFoundException.withId("Product", MISSING_ID), request);
+        return objectMapper.writeValueAsBytes(response.getBody());
+    }
+
+    @Benchmark
+    public MvcResult getMissingProduct(CatalogState catalog) throws Exception {
+        return ProductControllerBenchmark.perform(catalog, get("/v1/products/{id}", MISSING_ID));
+    }
+}
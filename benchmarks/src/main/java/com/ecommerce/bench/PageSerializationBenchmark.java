@@ -0,0 +1,42 @@
+package com.ecommerce.bench;
+
+import com.ecommerce.dto.PageDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.service.ProductService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Serializes a page of products with the application's {@link ObjectMapper}, as the product
+ * listing writes it. Controllers return {@link PageDTO} rather than Spring Data's page, so that
+ * is what is serialized.
+ */
+@State(Scope.Benchmark)
+public class PageSerializationBenchmark extends BenchmarkDefaults {
+
+    @Param({"20", "100"})
+    public int pageSize;
+
+    private ObjectMapper objectMapper;
+    private PageDTO<ProductDTO> page;
+
+    @Setup(Level.Trial)
+    public void load(CatalogState catalog) {
+        objectMapper = catalog.getBean(ObjectMapper.class);
+        page = PageDTO.from(catalog.getBean(ProductService.class)
+                .getAllProducts(PageRequest.of(0, pageSize, Sort.by("name"))));
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
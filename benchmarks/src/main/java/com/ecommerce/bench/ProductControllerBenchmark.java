@@ -0,0 +1,35 @@
+package com.ecommerce.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Handles product requests through MockMvc and the security filter chain, from handler
+ * mapping to the serialized response. The caches are warm after the first iterations, as
+ * they are in production.
+ */
+public class ProductControllerBenchmark extends BenchmarkDefaults {
+
+    @Benchmark
+    public MvcResult listProducts(CatalogState catalog) throws Exception {
+        return perform(catalog, get("/v1/products").param("page", "0").param("size", "20"));
+    }
+
+    @Benchmark
+    public MvcResult getProduct(CatalogState catalog) throws Exception {
+        return perform(catalog, get("/v1/products/{id}", 1));
+    }
+
+    @Benchmark
+    public MvcResult searchProducts(CatalogState catalog) throws Exception {
+        return perform(catalog, get("/v1/products/search").param("keyword", "wireless").param("size", "20"));
+    }
+
+    static MvcResult perform(CatalogState catalog, MockHttpServletRequestBuilder request) throws Exception {
+        return catalog.mockMvc.perform(request.with(user("bench-user-1"))).andReturn();
+    }
+}
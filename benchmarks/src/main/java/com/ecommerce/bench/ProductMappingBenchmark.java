@@ -0,0 +1,66 @@
+package com.ecommerce.bench;
+
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.mapper.ProductMapper;
+import com.ecommerce.model.Product;
+import com.ecommerce.repository.ProductRepository;
+import org.hibernate.Hibernate;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Maps a page of loaded products, with their categories, to DTOs: with {@link ProductMapper},
+ * and with ModelMapper as the application did before, as the baseline.
+ */
+@State(Scope.Benchmark)
+public class ProductMappingBenchmark extends BenchmarkDefaults {
+
+    private static final int PAGE_SIZE = 20;
+
+    private ProductMapper productMapper;
+    private ModelMapper modelMapper;
+    private List<Product> products;
+
+    @Setup(Level.Trial)
+    public void load(CatalogState catalog) {
+        productMapper = catalog.getBean(ProductMapper.class);
+        modelMapper = new ModelMapper();
+        ProductRepository productRepository = catalog.getBean(ProductRepository.class);
+        products = catalog.getBean(TransactionTemplate.class).execute(status -> {
+            List<Product> page = productRepository.findByIsActiveTrue(PageRequest.of(0, PAGE_SIZE, Sort.by("id")))
+                    .getContent();
+            page.forEach(product -> Hibernate.initialize(product.getCategory()));
+            return page;
+        });
+    }
+
+    @Benchmark
+    public void toDTO(Blackhole blackhole) {
+        for (Product product : products) {
+            ProductDTO dto = productMapper.toDTO(product);
+            blackhole.consume(dto);
+        }
+    }
+
+    @Benchmark
+    public void modelMapper(Blackhole blackhole) {
+        for (Product product : products) {
+            ProductDTO dto = modelMapper.map(product, ProductDTO.class);
+            if (product.getCategory() != null) {
+                dto.setCategoryId(product.getCategory().getId());
+                dto.setCategoryName(product.getCategory().getName());
+            }
+            blackhole.consume(dto);
+        }
+    }
+}
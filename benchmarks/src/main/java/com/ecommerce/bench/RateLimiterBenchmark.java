@@ -0,0 +1,62 @@
+package com.ecommerce.bench;
+
+import com.ecommerce.limit.RateLimitClass;
+import com.ecommerce.limit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work the rate limit filter does per request: classifying the request path, and taking a
+ * token from the bucket of one of many clients. Buckets are large enough that no request
+ * is rejected.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateLimiterBenchmark extends BenchmarkDefaults {
+
+    @Param("10000")
+    private int clients;
+
+    private RateLimiter rateLimiter;
+    private MockHttpServletRequest request;
+    private String[] addresses;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.rate-limit.read.burst", "1000000")
+                .withProperty("app.rate-limit.read.per-second", "1000000");
+        rateLimiter = new RateLimiter(environment, new SimpleMeterRegistry(), true);
+
+        request = new MockHttpServletRequest("GET", "/api/v1/products/42");
+        request.setContextPath("/api");
+
+        addresses = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            addresses[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public RateLimitClass classify() {
+        return RateLimitClass.of(request);
+    }
+
+    @Benchmark
+    public long tryAcquire() {
+        String address = addresses[next];
+        next = next + 1 < addresses.length ? next + 1 : 0;
+        return rateLimiter.tryAcquire(RateLimitClass.READ, null, address);
+    }
+}
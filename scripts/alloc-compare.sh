@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# Measures heap allocation per request with verbose (development-style) logging and with
+# production logging. Starts the application with the bench profile once per mode, loads the
+# same endpoints and divides the bytes allocated by the JVM by the number of requests served.
+#
+# Usage: scripts/alloc-compare.sh [jar] [duration] [connections]
+set -euo pipefail
+
+JAR=${1:-$(ls target/*.jar | head -1)}
+DURATION=${2:-30s}
+CONNECTIONS=${3:-50}
+PORT=18080
+BASE_URL="http://localhost:${PORT}/api"
+AUTH="Authorization: Basic dXNlcjp1c2VyMTIz"
+ENDPOINTS=(
+  "/v1/products?page=0&size=20"
+  "/v1/products/1"
+  "/v1/products/999999999"
+  "/v1/categories"
+)
+VERBOSE_LOGGING=(
+  --logging.level.com.ecommerce=DEBUG
+  --logging.level.org.springframework.web=DEBUG
+  --logging.level.org.hibernate.SQL=DEBUG
+  --logging.level.org.hibernate.orm.jdbc.bind=TRACE
+  --app.logging.request-sample-rate=1.0
+)
+
+command -v wrk >/dev/null || { echo "wrk is required" >&2; exit 1; }
+
+metric() {
+  curl -sf "${BASE_URL}/actuator/metrics/$1" \
+    | python3 -c 'import json,sys; print(int(json.load(sys.stdin)["measurements"][0]["value"]))'
+}
+
+run_mode() {
+  local name=$1
+  shift
+  # Requests shed with 503 cost little and would be counted as served
+  java -jar "$JAR" --spring.profiles.active=bench --server.port=$PORT \
+       --app.concurrency-limit.enabled=false "$@" >/tmp/alloc-compare-app.log 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  until curl -sf "${BASE_URL}/actuator/health/readiness" >/dev/null; do sleep 1; done
+
+  echo "== logging: ${name}"
+  for endpoint in "${ENDPOINTS[@]}"; do
+    # Warm up JIT and caches before measuring
+    wrk -t4 -c"$CONNECTIONS" -d10s -H "$AUTH" "${BASE_URL}${endpoint}" >/dev/null
+    local bytes_before requests_before
+    bytes_before=$(metric jvm.gc.memory.allocated)
+    requests_before=$(metric http.server.requests)
+    wrk -t4 -c"$CONNECTIONS" -d"$DURATION" -H "$AUTH" "${BASE_URL}${endpoint}" >/dev/null
+    local bytes requests
+    bytes=$(( $(metric jvm.gc.memory.allocated) - bytes_before ))
+    requests=$(( $(metric http.server.requests) - requests_before ))
+    printf "%-35s %12d requests  %10d bytes/request\n" "$endpoint" "$requests" $(( bytes / requests ))
+  done
+
+  kill $pid
+  wait $pid 2>/dev/null || true
+}
+
+run_mode verbose "${VERBOSE_LOGGING[@]}"
+run_mode production
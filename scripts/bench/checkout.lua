@@ -0,0 +1,61 @@
+-- wrk script: each connection fills the cart of its own benchmark user and checks it out.
+-- Run with as many connections as threads (-t N -c N), and N no larger than app.bench.seed.users.
+
+local b64chars = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+
+local function base64(data)
+  return ((data:gsub(".", function(x)
+    local r, byte = "", x:byte()
+    for i = 8, 1, -1 do r = r .. (byte % 2 ^ i - byte % 2 ^ (i - 1) > 0 and "1" or "0") end
+    return r
+  end) .. "0000"):gsub("%d%d%d?%d?%d?%d?", function(x)
+    if #x < 6 then return "" end
+    local c = 0
+    for i = 1, 6 do c = c + (x:sub(i, i) == "1" and 2 ^ (6 - i) or 0) end
+    return b64chars:sub(c + 1, c + 1)
+  end) .. ({ "", "==", "=" })[#data % 3 + 1])
+end
+
+local threads = {}
+local next_id = 0
+
+function setup(thread)
+  next_id = next_id + 1
+  thread:set("user_id", next_id)
+  table.insert(threads, thread)
+end
+
+function init(args)
+  lines = tonumber(args[1] or "3")
+  products = tonumber(args[2] or "10000")
+  auth = "Basic " .. base64("bench-user-" .. user_id .. ":bench123")
+  step = 0
+  checkouts = 0
+  math.randomseed(user_id)
+end
+
+function request()
+  local headers = { ["Authorization"] = auth, ["Content-Type"] = "application/json" }
+  step = step + 1
+  if step % (lines + 1) ~= 0 then
+    local body = string.format('{"productId": %d, "quantity": 1}', math.random(1, products))
+    return wrk.format("POST", "/api/v1/cart/items", headers, body)
+  end
+  return wrk.format("POST", "/api/v1/orders/checkout", headers, nil)
+end
+
+function response(status, headers, body)
+  if status == 201 then
+    checkouts = checkouts + 1
+  end
+end
+
+function done(summary, latency, requests)
+  local total = 0
+  for _, thread in ipairs(threads) do
+    total = total + thread:get("checkouts")
+  end
+  local seconds = summary.duration / 1e6
+  io.write(string.format("checkouts: %d in %.1fs = %.1f checkouts/s (p99 request latency %.1f ms)\n",
+    total, seconds, total / seconds, latency:percentile(99) / 1000))
+end
@@ -0,0 +1,48 @@
+#!/usr/bin/env bash
+# Compares checkouts per second with stock reserved by the batched conditional UPDATE and by the
+# inventory ledger: each connection adds a few random products to the cart of its own benchmark
+# user, then checks out. Starts the application with the bench profile once per mode.
+#
+# Usage: scripts/checkout-bench.sh [jar] [duration] [connections] [lines-per-order]
+#
+# Runs on the embedded H2 database by default. Set BENCH_DB_URL (and BENCH_DB_USER,
+# BENCH_DB_PASSWORD) to run against an empty Postgres database instead.
+set -euo pipefail
+
+JAR=${1:-$(ls target/*.jar | head -1)}
+DURATION=${2:-60s}
+CONNECTIONS=${3:-16}
+LINES=${4:-3}
+PORT=18080
+BASE_URL="http://localhost:${PORT}/api"
+
+command -v wrk >/dev/null || { echo "wrk is required" >&2; exit 1; }
+
+DB_ARGS=()
+if [[ -n "${BENCH_DB_URL:-}" ]]; then
+  DB_ARGS=(--spring.datasource.url="$BENCH_DB_URL"
+           --spring.datasource.driver-class-name=org.postgresql.Driver
+           --spring.datasource.username="${BENCH_DB_USER:-postgres}"
+           --spring.datasource.password="${BENCH_DB_PASSWORD:-postgres}"
+           --spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect)
+fi
+
+run_mode() {
+  local ledger=$1
+  java -jar "$JAR" --spring.profiles.active=bench --server.port=$PORT \
+       --app.inventory.ledger.enabled="$ledger" "${DB_ARGS[@]}" >/tmp/checkout-bench-app.log 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  until curl -sf "${BASE_URL}/actuator/health/readiness" >/dev/null; do sleep 1; done
+
+  echo "== inventory ledger: ${ledger}"
+  wrk -t"$CONNECTIONS" -c"$CONNECTIONS" -d"$DURATION" --latency \
+      -s "$(dirname "$0")/bench/checkout.lua" "$BASE_URL" -- "$LINES" 10000
+
+  kill $pid
+  wait $pid 2>/dev/null || true
+}
+
+run_mode false
+run_mode true
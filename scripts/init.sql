@@ -18,6 +18,7 @@ CREATE TABLE IF NOT EXISTS products (
     category_id INT NOT NULL,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    catalog_updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     is_active BOOLEAN DEFAULT true,
     FOREIGN KEY (category_id) REFERENCES categories(id)
 );
@@ -69,13 +70,50 @@ CREATE TABLE IF NOT EXISTS cart_items (
     FOREIGN KEY (product_id) REFERENCES products(id)
 );
 
+-- Stock Leases Table (units held by the in-memory inventory ledger of a node)
+CREATE TABLE IF NOT EXISTS stock_leases (
+    id SERIAL PRIMARY KEY,
+    node_id VARCHAR(100) NOT NULL,
+    product_id INT NOT NULL,
+    quantity INT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (node_id, product_id),
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Stock Sales Table (units sold from a node's leases, folded into them by the ledger's flush)
+CREATE TABLE IF NOT EXISTS stock_sales (
+    id BIGSERIAL PRIMARY KEY,
+    node_id VARCHAR(100) NOT NULL,
+    product_id INT NOT NULL,
+    quantity INT NOT NULL,
+    FOREIGN KEY (product_id) REFERENCES products(id) ON DELETE CASCADE
+);
+
+-- Catalog Revisions Table (bumped by catalog writes; listing ETags are derived from it)
+CREATE TABLE IF NOT EXISTS catalog_revisions (
+    name VARCHAR(20) PRIMARY KEY,
+    revision BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+INSERT INTO catalog_revisions (name, revision) VALUES ('products', 0), ('categories', 0)
+ON CONFLICT (name) DO NOTHING;
+
 -- Create Indexes
 CREATE INDEX idx_products_category_id ON products(category_id);
 CREATE INDEX idx_products_is_active ON products(is_active);
+CREATE INDEX idx_products_active_name_id ON products(is_active, name, id);
+CREATE INDEX idx_products_active_price_id ON products(is_active, price, id);
+CREATE INDEX idx_products_category_active_id ON products(category_id, is_active, id);
+CREATE INDEX idx_products_updated_at ON products(updated_at);
+CREATE INDEX idx_products_catalog_updated_at ON products(catalog_updated_at);
 CREATE INDEX idx_orders_user_id ON orders(user_id);
 CREATE INDEX idx_order_items_order_id ON order_items(order_id);
 CREATE INDEX idx_order_items_product_id ON order_items(product_id);
+CREATE INDEX idx_stock_sales_node_id ON stock_sales(node_id, id);
 CREATE INDEX idx_cart_items_user_id ON cart_items(user_id);
 CREATE INDEX idx_cart_items_product_id ON cart_items(product_id);
 CREATE INDEX idx_users_username ON users(username);
 CREATE INDEX idx_users_email ON users(email);
+CREATE INDEX idx_users_updated_at ON users(updated_at);
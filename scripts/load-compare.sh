@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Compares throughput and p99 latency of platform-thread and virtual-thread request handling.
+# Starts the application with the bench profile once per mode and loads the same endpoints.
+#
+# Usage: scripts/load-compare.sh [jar] [duration] [connections]
+set -euo pipefail
+
+JAR=${1:-$(ls target/*.jar | head -1)}
+DURATION=${2:-60s}
+CONNECTIONS=${3:-400}
+PORT=18080
+BASE_URL="http://localhost:${PORT}/api"
+ENDPOINTS=(
+  "/v1/products?page=0&size=20"
+  "/v1/products/scroll?size=20&sortBy=price"
+  "/v1/products/search?keyword=wireless"
+  "/v1/categories"
+)
+
+command -v wrk >/dev/null || { echo "wrk is required" >&2; exit 1; }
+
+run_mode() {
+  local virtual=$1
+  java -jar "$JAR" --spring.profiles.active=bench --server.port=$PORT \
+       --spring.threads.virtual.enabled="$virtual" >/tmp/load-compare-app.log 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  until curl -sf "${BASE_URL}/actuator/health/readiness" >/dev/null; do sleep 1; done
+
+  echo "== virtual threads: ${virtual}"
+  for endpoint in "${ENDPOINTS[@]}"; do
+    # Warm up JIT and caches before measuring
+    wrk -t4 -c50 -d10s -H "Authorization: Basic dXNlcjp1c2VyMTIz" "${BASE_URL}${endpoint}" >/dev/null
+    wrk -t8 -c"$CONNECTIONS" -d"$DURATION" --latency -H "Authorization: Basic dXNlcjp1c2VyMTIz" \
+        "${BASE_URL}${endpoint}" \
+      | awk -v ep="$endpoint" '/Requests\/sec/ {rps=$2} / 99%/ {p99=$2} /Non-2xx/ {non2xx=$NF}
+          END {printf "%-45s %10s req/s  p99 %-10s %d non-2xx\n", ep, rps, p99, non2xx}'
+  done
+
+  kill $pid
+  wait $pid 2>/dev/null || true
+}
+
+run_mode false
+run_mode true
@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+# Runs a local PostgreSQL primary (port 5432) with one streaming replica (port 5433) in
+# Docker, for trying read-replica routing. Start the application against them with:
+#
+#   SPRING_PROFILES_ACTIVE=default APP_DATASOURCE_REPLICA_URLS=jdbc:postgresql://localhost:5433/ecommerce_db \
+#     java -jar target/*.jar
+#
+# Usage: scripts/replica-local.sh up|down|pause|resume|lag
+#   pause/resume stop and restart WAL replay on the replica, to see reads fall back to the
+#   primary once the replica is over app.datasource.replica.max-lag-ms
+set -euo pipefail
+
+NETWORK=ecommerce_replication
+PRIMARY=ecommerce_pg_primary
+REPLICA=ecommerce_pg_replica
+IMAGE=bitnami/postgresql:16
+PASSWORD=postgres
+
+replica_sql() {
+  docker exec -e PGPASSWORD="$PASSWORD" "$REPLICA" psql -U postgres -d ecommerce_db -tAc "$1"
+}
+
+case "${1:-}" in
+  up)
+    docker network inspect "$NETWORK" >/dev/null 2>&1 || docker network create "$NETWORK" >/dev/null
+    docker run -d --name "$PRIMARY" --network "$NETWORK" -p 5432:5432 \
+      -e POSTGRESQL_REPLICATION_MODE=master \
+      -e POSTGRESQL_REPLICATION_USER=replicator -e POSTGRESQL_REPLICATION_PASSWORD=replicator \
+      -e POSTGRESQL_PASSWORD="$PASSWORD" -e POSTGRESQL_DATABASE=ecommerce_db \
+      "$IMAGE" >/dev/null
+    docker run -d --name "$REPLICA" --network "$NETWORK" -p 5433:5432 \
+      -e POSTGRESQL_REPLICATION_MODE=slave \
+      -e POSTGRESQL_MASTER_HOST="$PRIMARY" -e POSTGRESQL_MASTER_PORT_NUMBER=5432 \
+      -e POSTGRESQL_REPLICATION_USER=replicator -e POSTGRESQL_REPLICATION_PASSWORD=replicator \
+      -e POSTGRESQL_PASSWORD="$PASSWORD" \
+      "$IMAGE" >/dev/null
+    echo "Primary on localhost:5432, replica on localhost:5433"
+    ;;
+  down)
+    docker rm -f "$PRIMARY" "$REPLICA" >/dev/null 2>&1 || true
+    docker network rm "$NETWORK" >/dev/null 2>&1 || true
+    ;;
+  pause)
+    replica_sql "SELECT pg_wal_replay_pause()" >/dev/null
+    echo "Replay paused; the replica falls behind with the next write on the primary"
+    ;;
+  resume)
+    replica_sql "SELECT pg_wal_replay_resume()" >/dev/null
+    echo "Replay resumed"
+    ;;
+  lag)
+    replica_sql "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+        ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END"
+    ;;
+  *)
+    echo "Usage: $0 up|down|pause|resume|lag" >&2
+    exit 1
+    ;;
+esac
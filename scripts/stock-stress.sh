@@ -0,0 +1,91 @@
+#!/usr/bin/env bash
+# Stress test for stock reservation: many benchmark users check out the same product
+# concurrently until it sells out, then checks that no unit was oversold. Starts the
+# application with the bench profile, with the inventory ledger off and on.
+#
+# Usage: scripts/stock-stress.sh [jar] [users] [product-id]
+#
+# Runs on the embedded H2 database by default. Set BENCH_DB_URL (and BENCH_DB_USER,
+# BENCH_DB_PASSWORD) to run against an empty Postgres database instead.
+set -euo pipefail
+
+JAR=${1:-$(ls target/*.jar | head -1)}
+USERS=${2:-32}
+PRODUCT_ID=${3:-1}
+PORT=18080
+BASE_URL="http://localhost:${PORT}/api"
+RESULTS=$(mktemp -d)
+export BASE_URL PRODUCT_ID RESULTS
+
+DB_ARGS=()
+if [[ -n "${BENCH_DB_URL:-}" ]]; then
+  DB_ARGS=(--spring.datasource.url="$BENCH_DB_URL"
+           --spring.datasource.driver-class-name=org.postgresql.Driver
+           --spring.datasource.username="${BENCH_DB_USER:-postgres}"
+           --spring.datasource.password="${BENCH_DB_PASSWORD:-postgres}"
+           --spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect)
+fi
+
+stock() {
+  curl -sf "${BASE_URL}/v1/products/${PRODUCT_ID}" | sed -E 's/.*"stockQuantity":([0-9-]+).*/\1/'
+}
+
+# Buys one unit per order until the product is sold out; prints the number of orders placed
+buyer() {
+  local auth="bench-user-$1:bench123" sold=0 status
+  while true; do
+    curl -sf -o /dev/null -u "$auth" -H "Content-Type: application/json" \
+         -d "{\"productId\": ${PRODUCT_ID}, \"quantity\": 1}" "${BASE_URL}/v1/cart/items" || break
+    status=$(curl -s -o /dev/null -w '%{http_code}' -u "$auth" -X POST "${BASE_URL}/v1/orders/checkout")
+    [[ "$status" == "201" ]] || break
+    sold=$((sold + 1))
+  done
+  echo "$sold" >"${RESULTS}/$1"
+}
+export -f buyer
+
+run_mode() {
+  local ledger=$1
+  rm -f "${RESULTS}"/*
+  java -jar "$JAR" --spring.profiles.active=bench --server.port=$PORT \
+       --app.bench.seed.users="$USERS" --app.rate-limit.enabled=false \
+       --app.concurrency-limit.enabled=false \
+       --app.inventory.ledger.enabled="$ledger" "${DB_ARGS[@]}" >/tmp/stock-stress-app.log 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  until curl -sf "${BASE_URL}/actuator/health/readiness" >/dev/null; do sleep 1; done
+
+  local initial started elapsed sold remaining
+  initial=$(stock)
+  if [[ -z "$initial" || "$initial" -le 0 ]]; then
+    echo "Product ${PRODUCT_ID} is not active or out of stock, pick another product id" >&2
+    exit 1
+  fi
+  started=$(date +%s.%N)
+  seq 1 "$USERS" | xargs -P "$USERS" -I{} bash -c 'buyer {}'
+  elapsed=$(echo "$(date +%s.%N) - $started" | bc)
+  sold=$(cat "${RESULTS}"/* | paste -sd+ | bc)
+  # Give the ledger time to write back the leases of the sold-out product
+  sleep 1
+  remaining=$(stock)
+
+  printf "== inventory ledger: %s\n" "$ledger"
+  printf "initial stock %d, orders %d, remaining stock %d, %.1f orders/s\n" \
+         "$initial" "$sold" "$remaining" "$(echo "$sold / $elapsed" | bc -l)"
+  if (( sold > initial || remaining < 0 )); then
+    echo "FAIL: oversold" >&2
+    exit 1
+  fi
+  if [[ "$ledger" == "false" ]] && (( sold + remaining != initial )); then
+    echo "FAIL: lost update, orders + remaining stock != initial stock" >&2
+    exit 1
+  fi
+  echo "OK"
+
+  kill $pid
+  wait $pid 2>/dev/null || true
+}
+
+run_mode false
+run_mode true
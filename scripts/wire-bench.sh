@@ -0,0 +1,71 @@
+#!/usr/bin/env bash
+# Measures bytes on the wire and server CPU per request for the catalog listing endpoints,
+# with pretty-printed JSON (the previous default), compact JSON, and compact JSON with gzip.
+# Starts the application with the bench profile once per JSON mode.
+#
+# Usage: scripts/wire-bench.sh [jar] [duration] [connections]
+set -euo pipefail
+
+JAR=${1:-$(ls target/*.jar | head -1)}
+DURATION=${2:-30s}
+CONNECTIONS=${3:-50}
+PORT=18080
+BASE_URL="http://localhost:${PORT}/api"
+AUTH="Authorization: Basic dXNlcjp1c2VyMTIz"
+ENDPOINTS=(
+  "/v1/products?page=0&size=100"
+  "/v1/products/scroll?size=100&sortBy=price"
+  "/v1/products/search?keyword=wireless&size=100"
+  "/v1/categories"
+)
+
+command -v wrk >/dev/null || { echo "wrk is required" >&2; exit 1; }
+
+# CPU seconds used by the process so far, from /proc (utime + stime in clock ticks)
+cpu_seconds() {
+  awk -v hz="$(getconf CLK_TCK)" '{printf "%.3f", ($14 + $15) / hz}' "/proc/$1/stat"
+}
+
+measure() {
+  local pid=$1 endpoint=$2 encoding=$3 label=$4
+  local bytes
+  bytes=$(curl -s -o /dev/null -w '%{size_download}' -H "$AUTH" -H "Accept-Encoding: ${encoding}" \
+      "${BASE_URL}${endpoint}")
+  # Warm up JIT and caches before measuring
+  wrk -t4 -c"$CONNECTIONS" -d10s -H "$AUTH" -H "Accept-Encoding: ${encoding}" "${BASE_URL}${endpoint}" >/dev/null
+  local cpu_before requests
+  cpu_before=$(cpu_seconds "$pid")
+  requests=$(wrk -t4 -c"$CONNECTIONS" -d"$DURATION" -H "$AUTH" -H "Accept-Encoding: ${encoding}" \
+      "${BASE_URL}${endpoint}" | awk '/requests in/ {print $1}')
+  local cpu_after
+  cpu_after=$(cpu_seconds "$pid")
+  awk -v ep="$endpoint" -v label="$label" -v bytes="$bytes" -v req="$requests" -v c0="$cpu_before" -v c1="$cpu_after" \
+      'BEGIN {printf "%-48s %-14s %9d bytes  %8.1f us CPU/request\n", ep, label, bytes, (c1 - c0) * 1e6 / req}'
+}
+
+run_mode() {
+  local indent=$1
+  # Requests shed with 503 cost little and would be counted as served
+  java -jar "$JAR" --spring.profiles.active=bench --server.port=$PORT \
+       --app.concurrency-limit.enabled=false \
+       --spring.jackson.serialization.indent-output="$indent" >/tmp/wire-bench-app.log 2>&1 &
+  local pid=$!
+  trap "kill $pid 2>/dev/null || true" EXIT
+
+  until curl -sf "${BASE_URL}/actuator/health/readiness" >/dev/null; do sleep 1; done
+
+  for endpoint in "${ENDPOINTS[@]}"; do
+    if [ "$indent" = true ]; then
+      measure "$pid" "$endpoint" identity pretty
+    else
+      measure "$pid" "$endpoint" identity compact
+      measure "$pid" "$endpoint" gzip compact+gzip
+    fi
+  done
+
+  kill $pid
+  wait $pid 2>/dev/null || true
+}
+
+run_mode true
+run_mode false
@@ -0,0 +1,171 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.datasource.PrimaryReads;
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.event.StockChangedEvent;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Evicts exactly the catalog cache entries affected by a committed write.
+ * <p>
+ * Writes on this node are evicted from their events. Writes made on other nodes, or by
+ * statements that bypass the services, are picked up by polling, in the way
+ * {@link com.ecommerce.search.ProductIndexReconciler} polls for the indexes: every interval,
+ * the ids of products and categories whose {@code updated_at} is past the previous poll are
+ * read from the primary and evicted, reaching back by the commit delay; a row already
+ * evicted by an earlier poll at the same {@code updated_at} is not evicted again. Cached
+ * products include stock, so the poll reads {@code updated_at}, which stock statements set,
+ * rather than {@code catalog_updated_at}. Deleted rows leave nothing to poll, so every sweep
+ * interval the cached ids are checked against the tables, and the category list is reloaded.
+ */
+@Component
+@Slf4j
+public class CatalogCacheInvalidator {
+
+    private static final int SWEEP_BATCH_SIZE = 1000;
+
+    private final NearCache<Long, ProductDTO> productCache;
+    private final NearCache<Long, CategoryDTO> categoryCache;
+    private final NearCache<String, List<CategoryDTO>> categoryListCache;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final Duration commitDelay;
+    private final long sweepIntervalMillis;
+
+    // updated_at of the rows evicted by polls within the commit delay, by id
+    private final Map<Long, LocalDateTime> evictedProducts = new HashMap<>();
+    private final Map<Long, LocalDateTime> evictedCategories = new HashMap<>();
+
+    private LocalDateTime lastPoll = LocalDateTime.now();
+    private long lastSweep = System.currentTimeMillis();
+
+    public CatalogCacheInvalidator(NearCache<Long, ProductDTO> productCache,
+                                   NearCache<Long, CategoryDTO> categoryCache,
+                                   NearCache<String, List<CategoryDTO>> categoryListCache,
+                                   ProductRepository productRepository,
+                                   CategoryRepository categoryRepository,
+                                   @Value("${app.cache.catalog.reconcile.commit-delay:5s}") Duration commitDelay,
+                                   @Value("${app.cache.catalog.reconcile.sweep-interval:5m}") Duration sweepInterval) {
+        this.productCache = productCache;
+        this.categoryCache = categoryCache;
+        this.categoryListCache = categoryListCache;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.commitDelay = commitDelay;
+        this.sweepIntervalMillis = sweepInterval.toMillis();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        productCache.invalidate(event.productId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        event.products().forEach(product -> productCache.invalidate(product.getId()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        event.productIds().forEach(productCache::invalidate);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalidateCategory(event.categoryId());
+    }
+
+    /**
+     * Evicts the catalog rows changed since the previous poll. Synchronized, so that a call
+     * outside the schedule cannot overlap a scheduled one.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.catalog.reconcile.interval-ms:1000}")
+    public synchronized void reconcile() {
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = lastPoll.minus(commitDelay);
+        List<Long> products = changed(PrimaryReads.call(() -> productRepository.findUpdatesAfter(since)),
+                evictedProducts, since);
+        List<Long> categories = changed(PrimaryReads.call(() -> categoryRepository.findUpdatesAfter(since)),
+                evictedCategories, since);
+        products.forEach(productCache::invalidate);
+        categories.forEach(this::invalidateCategory);
+        lastPoll = started;
+        log.debug("Evicted {} products and {} categories changed since {}", products.size(), categories.size(), since);
+
+        if (System.currentTimeMillis() - lastSweep > sweepIntervalMillis) {
+            sweep();
+        }
+    }
+
+    private void sweep() {
+        List<Long> products = missing(productCache.keys(), productRepository::findExistingIds);
+        List<Long> categories = missing(categoryCache.keys(), categoryRepository::findExistingIds);
+        products.forEach(productCache::invalidate);
+        categories.forEach(this::invalidateCategory);
+        categoryListCache.invalidateAll();
+        lastSweep = System.currentTimeMillis();
+        log.debug("Swept the catalog caches, evicted {} deleted products and {} deleted categories",
+                products.size(), categories.size());
+    }
+
+    /**
+     * Returns the ids of the {@code [id, updatedAt]} rows not yet evicted at that
+     * {@code updated_at}, and records them as evicted.
+     */
+    private static List<Long> changed(List<Object[]> rows, Map<Long, LocalDateTime> evicted, LocalDateTime since) {
+        evicted.values().removeIf(version -> !version.isAfter(since));
+        List<Long> changed = new ArrayList<>();
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            LocalDateTime version = (LocalDateTime) row[1];
+            if (!version.equals(evicted.put(id, version))) {
+                changed.add(id);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Returns the ids that the finder, given a batch of ids, does not return.
+     */
+    private static List<Long> missing(Set<Long> cached, Function<List<Long>, List<Long>> findExisting) {
+        List<Long> ids = new ArrayList<>(cached);
+        List<Long> missing = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += SWEEP_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + SWEEP_BATCH_SIZE, ids.size()));
+            Set<Long> existing = new HashSet<>(PrimaryReads.call(() -> findExisting.apply(batch)));
+            batch.stream()
+                    .filter(id -> !existing.contains(id))
+                    .forEach(missing::add);
+        }
+        return missing;
+    }
+
+    private void invalidateCategory(Long categoryId) {
+        categoryCache.invalidate(categoryId);
+        categoryListCache.invalidateAll();
+        // Cached products embed the category name
+        productCache.invalidateIf((id, product) -> categoryId.equals(product.getCategoryId()));
+    }
+}
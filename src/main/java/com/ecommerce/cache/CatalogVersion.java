@@ -0,0 +1,255 @@
+package com.ecommerce.cache;
+
+import com.ecommerce.datasource.PrimaryReads;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.event.CategoryChangedEvent;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.event.StockChangedEvent;
+import com.ecommerce.model.CatalogRevision;
+import com.ecommerce.repository.CatalogRevisionRepository;
+import com.ecommerce.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Validators for conditional GETs on the catalog.
+ * <p>
+ * Listings are validated against the {@link CatalogRevision} of the catalog tables, which
+ * every node reads the same. Each product and category write through the services bumps it
+ * once it has committed, in a statement of its own, so that the revision row is locked only
+ * for that statement and catalog writes do not queue behind each other for it. The revisions
+ * are polled every refresh interval, one primary-key read of two rows, rather than queried
+ * per request, so a write on another node shows within one interval of its bump. After a
+ * write on this node, listings have no validators until the next poll, so that no 304 hides
+ * the write. A bump that fails is retried by every poll, and until it succeeds this node
+ * serves no listing validators; other nodes keep theirs until then.
+ * <p>
+ * Listings show stock, which changes without bumping the revisions. Every statement that
+ * changes stock sets {@code products.updated_at}, so the poll also reads its maximum, an index
+ * lookup, and product listing validators include it. A write may commit up to the commit delay
+ * after it set the column, behind a later write that committed first, so product listings
+ * have no validators until the latest update is older than the delay. Single products are
+ * validated against a hash of their cached representation, stock included, so a cached
+ * product is revalidated without a query.
+ */
+@Component
+@Slf4j
+public class CatalogVersion {
+
+    private final CatalogRevisionRepository catalogRevisionRepository;
+    private final ProductRepository productRepository;
+    private final NearCache<Long, ProductDTO> productCache;
+    private final Duration commitDelay;
+    private final AtomicLong localWrites = new AtomicLong();
+    // Committed writes not yet covered by a bump, by revision name
+    private final ConcurrentMap<String, Integer> pendingBumps = new ConcurrentHashMap<>();
+    private volatile Validators products;
+    private volatile Validators categories;
+
+    public CatalogVersion(CatalogRevisionRepository catalogRevisionRepository,
+                          ProductRepository productRepository,
+                          NearCache<Long, ProductDTO> productCache,
+                          @Value("${app.search.reconcile.commit-delay:5s}") Duration commitDelay) {
+        this.catalogRevisionRepository = catalogRevisionRepository;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.commitDelay = commitDelay;
+    }
+
+    /**
+     * Creates the revision rows if the schema was generated without them.
+     */
+    @PostConstruct
+    public void init() {
+        for (String name : List.of(CatalogRevision.PRODUCTS, CatalogRevision.CATEGORIES)) {
+            if (!catalogRevisionRepository.existsById(name)) {
+                try {
+                    catalogRevisionRepository.save(new CatalogRevision(name, 0L, LocalDateTime.now()));
+                } catch (DataIntegrityViolationException e) {
+                    // Created by another node starting at the same time
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the ETag of product listings, or {@code null} while it is unknown.
+     */
+    public String productsETag() {
+        Validators validators = products;
+        return validators != null ? validators.eTag() : null;
+    }
+
+    /**
+     * Returns the last modification time of product listings in epoch milliseconds, or -1
+     * while it is unknown.
+     */
+    public long productsLastModified() {
+        Validators validators = products;
+        return validators != null ? validators.lastModified() : -1;
+    }
+
+    /**
+     * Returns the ETag of category listings, or {@code null} while it is unknown.
+     */
+    public String categoriesETag() {
+        Validators validators = categories;
+        return validators != null ? validators.eTag() : null;
+    }
+
+    /**
+     * Returns the last modification time of category listings in epoch milliseconds, or -1
+     * while it is unknown.
+     */
+    public long categoriesLastModified() {
+        Validators validators = categories;
+        return validators != null ? validators.lastModified() : -1;
+    }
+
+    /**
+     * Returns the ETag of the product as cached on this node, or {@code null} if it is not
+     * cached. Does not load the product.
+     */
+    public String productETag(Long id) {
+        ProductDTO product = productCache.getIfPresent(id);
+        return product != null ? productETag(product) : null;
+    }
+
+    /**
+     * Returns the ETag of a product representation, derived from its content, so it is the
+     * same on every node.
+     */
+    public String productETag(ProductDTO product) {
+        String content = product.toString();
+        // 64-bit FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < content.length(); i++) {
+            hash = (hash ^ content.charAt(i)) * 0x100000001b3L;
+        }
+        return "W/\"" + product.getId() + "-" + Long.toUnsignedString(hash, 36) + "\"";
+    }
+
+    /**
+     * Reads the revisions of the catalog tables and the last product update, and derives the
+     * validators from them.
+     */
+    @Scheduled(fixedDelayString = "${app.cache.catalog-version.refresh-ms:1000}")
+    public void refresh() {
+        if (!bumpPending()) {
+            categories = null;
+            products = null;
+            return;
+        }
+        long writes = localWrites.get();
+        LocalDateTime settled = LocalDateTime.now().minus(commitDelay);
+        Map<String, CatalogRevision> revisions = PrimaryReads.call(catalogRevisionRepository::findAll).stream()
+                .collect(Collectors.toMap(CatalogRevision::getName, Function.identity()));
+        LocalDateTime lastUpdate = PrimaryReads.call(productRepository::findLastUpdatedAt);
+        CatalogRevision productRevision = revisions.get(CatalogRevision.PRODUCTS);
+        CatalogRevision categoryRevision = revisions.get(CatalogRevision.CATEGORIES);
+        // A write committed while reading may be missing from the result; wait for the next poll
+        if (productRevision == null || categoryRevision == null || localWrites.get() != writes) {
+            return;
+        }
+        long productsModified = millis(productRevision.getUpdatedAt());
+        long categoriesModified = millis(categoryRevision.getUpdatedAt());
+        String categoryState = "c" + Long.toString(categoryRevision.getRevision(), 36);
+        categories = new Validators("W/\"" + categoryState + "\"", categoriesModified);
+        if (lastUpdate != null && lastUpdate.isAfter(settled)) {
+            // An update with an earlier time may still commit and leave the maximum unchanged
+            products = null;
+            return;
+        }
+        long stockModified = lastUpdate != null ? millis(lastUpdate) : 0;
+        // Product representations embed the category name and the stock
+        products = new Validators("W/\"p" + Long.toString(productRevision.getRevision(), 36) + "-" + categoryState
+                + "-s" + Long.toString(stockModified, 36) + "\"",
+                Math.max(Math.max(productsModified, categoriesModified), stockModified));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        bump(CatalogRevision.PRODUCTS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        bump(CatalogRevision.PRODUCTS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        invalidate(CatalogRevision.PRODUCTS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        bump(CatalogRevision.CATEGORIES);
+    }
+
+    private void bump(String name) {
+        pendingBumps.merge(name, 1, Integer::sum);
+        invalidate(name);
+        bumpPending();
+        // A poll that read the revisions before the bump must not publish them
+        invalidate(name);
+    }
+
+    /**
+     * Bumps every revision with committed writes not yet covered by a bump.
+     *
+     * @return true if none is left
+     */
+    private boolean bumpPending() {
+        for (String name : List.copyOf(pendingBumps.keySet())) {
+            Integer writes = pendingBumps.get(name);
+            if (writes == null) {
+                continue;
+            }
+            try {
+                catalogRevisionRepository.bump(List.of(name));
+            } catch (DataAccessException e) {
+                log.warn("Failed to bump the {} revision, will retry", name, e);
+                return false;
+            }
+            // Writes counted after the read above commit before the bump and wait for another
+            pendingBumps.computeIfPresent(name, (key, count) -> count > writes ? count - writes : null);
+        }
+        return pendingBumps.isEmpty();
+    }
+
+    private void invalidate(String name) {
+        localWrites.incrementAndGet();
+        if (CatalogRevision.CATEGORIES.equals(name)) {
+            categories = null;
+        }
+        // Product representations embed the category name
+        products = null;
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Validators(String eTag, long lastModified) {
+    }
+}
@@ -0,0 +1,273 @@
+package com.ecommerce.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache with time-based expiry and single-flight loading: concurrent
+ * misses on the same key wait for one load instead of each calling the loader. Failed loads
+ * are not cached. When the cache is full, the entry loaded first out of a small random sample
+ * of entries is evicted, which approximates evicting the oldest entry.
+ * <p>
+ * Hits, misses, evictions, size and load time are published to the given meter registry,
+ * tagged with the cache name.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class NearCache<K, V> {
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<K, Node<V>> entries = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Timer loadTimer;
+
+    public NearCache(String name, int maximumSize, Duration ttl, MeterRegistry meterRegistry) {
+        this.maximumSize = maximumSize;
+        this.ttlNanos = ttl.toNanos();
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit")
+                .description("Cache lookups served from memory or from an in-flight load")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss")
+                .description("Cache lookups that triggered a load")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name)
+                .description("Entries evicted because the cache was full")
+                .register(meterRegistry);
+        this.loadTimer = Timer.builder("cache.load").tag("cache", name)
+                .description("Time spent loading missing entries")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", entries, Map::size).tag("cache", name)
+                .description("Number of cached entries")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached value for the key, loading it with the loader on a miss.
+     * Exceptions and errors thrown by the loader are rethrown to every caller waiting on that
+     * load.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.nanoTime();
+        Node<V> node = entries.get(key);
+        if (node != null && !node.isExpired(now)) {
+            hits.increment();
+            return await(node);
+        }
+
+        Node<V> loading = new Node<>(new CompletableFuture<>(), now + ttlNanos);
+        Node<V> winner = entries.compute(key, (k, current) ->
+                current == null || current.isExpired(now) ? loading : current);
+        if (winner != loading) {
+            hits.increment();
+            return await(winner);
+        }
+
+        misses.increment();
+        evictIfFull();
+        long started = System.nanoTime();
+        try {
+            V value = loader.apply(key);
+            loading.value.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Errors too, or callers waiting on the load would block forever
+            entries.remove(key, loading);
+            loading.value.completeExceptionally(e);
+            throw e;
+        } finally {
+            loadTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        }
+    }
+
+    /**
+     * Returns the cached values for the keys, loading all missing keys with a single call of
+     * the loader. A key the loader returns no value for is left out of the result, and fails
+     * the lookups of other callers waiting on it with the exception made by {@code absent}.
+     * Exceptions of loads by other callers are rethrown, as by {@link #get}.
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys,
+                            Function<? super Set<K>, ? extends Map<K, V>> loader,
+                            Function<? super K, ? extends RuntimeException> absent) {
+        long now = System.nanoTime();
+        Map<K, Node<V>> pending = new LinkedHashMap<>();
+        Map<K, Node<V>> loading = new LinkedHashMap<>();
+        for (K key : keys) {
+            Node<V> node = entries.get(key);
+            if (node != null && !node.isExpired(now)) {
+                hits.increment();
+                pending.put(key, node);
+                continue;
+            }
+            Node<V> candidate = new Node<>(new CompletableFuture<>(), now + ttlNanos);
+            Node<V> winner = entries.compute(key, (k, current) ->
+                    current == null || current.isExpired(now) ? candidate : current);
+            if (winner == candidate) {
+                misses.increment();
+                loading.put(key, candidate);
+            } else {
+                hits.increment();
+            }
+            pending.put(key, winner);
+        }
+
+        if (!loading.isEmpty()) {
+            evictIfFull();
+            long started = System.nanoTime();
+            try {
+                Map<K, V> loaded = loader.apply(loading.keySet());
+                loading.forEach((key, node) -> {
+                    V value = loaded.get(key);
+                    if (value != null) {
+                        node.value.complete(value);
+                    } else {
+                        entries.remove(key, node);
+                        node.value.completeExceptionally(absent.apply(key));
+                    }
+                });
+            } catch (Throwable e) {
+                loading.forEach((key, node) -> {
+                    entries.remove(key, node);
+                    node.value.completeExceptionally(e);
+                });
+                throw e;
+            } finally {
+                loadTimer.record(Duration.ofNanos(System.nanoTime() - started));
+            }
+        }
+
+        Map<K, V> result = new LinkedHashMap<>();
+        pending.forEach((key, node) -> {
+            if (!loading.containsKey(key) || !node.value.isCompletedExceptionally()) {
+                result.put(key, await(node));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the cached value for the key without loading it, or {@code null} if it is
+     * missing, expired or still loading. Not counted as a lookup.
+     */
+    public V getIfPresent(K key) {
+        Node<V> node = entries.get(key);
+        if (node == null || node.isExpired(System.nanoTime())
+                || node.value.state() != Future.State.SUCCESS) {
+            return null;
+        }
+        return node.value.resultNow();
+    }
+
+    /**
+     * Returns a snapshot of the keys currently in the cache, loaded or loading.
+     */
+    public Set<K> keys() {
+        return Set.copyOf(entries.keySet());
+    }
+
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Removes every loaded entry whose key and value match the predicate.
+     */
+    public void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        entries.forEach((key, node) -> {
+            V value = node.value.getNow(null);
+            if (value != null && predicate.test(key, value)) {
+                entries.remove(key, node);
+            }
+        });
+    }
+
+    private void evictIfFull() {
+        while (entries.size() > maximumSize) {
+            Sample sample = new Sample();
+            sampleRegion().forEachRemaining(sample);
+            if (sample.oldest != null && entries.remove(sample.oldest.getKey(), sample.oldest.getValue())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns a random part of the table holding about {@link #EVICTION_SAMPLE_SIZE} entries, by
+     * splitting the table in halves and keeping one at random, so that samples are not always
+     * taken from the first buckets.
+     */
+    private Spliterator<Map.Entry<K, Node<V>>> sampleRegion() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Spliterator<Map.Entry<K, Node<V>>> region = entries.entrySet().spliterator();
+        for (long size = entries.size(); size > EVICTION_SAMPLE_SIZE; size /= 2) {
+            Spliterator<Map.Entry<K, Node<V>>> upper = region.trySplit();
+            if (upper == null) {
+                break;
+            }
+            if (random.nextBoolean()) {
+                region = upper;
+            }
+        }
+        return region;
+    }
+
+    private V await(Node<V> node) {
+        try {
+            return node.value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private final class Sample implements Consumer<Map.Entry<K, Node<V>>> {
+
+        private Map.Entry<K, Node<V>> oldest;
+
+        @Override
+        public void accept(Map.Entry<K, Node<V>> candidate) {
+            if (oldest == null || candidate.getValue().expiresAt < oldest.getValue().expiresAt) {
+                oldest = candidate;
+            }
+        }
+    }
+
+    private record Node<V>(CompletableFuture<V> value, long expiresAt) {
+
+        private boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.ecommerce.cart;
+
+import com.ecommerce.dto.CartLineDTO;
+import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.UserRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process store of shopping carts, keyed by username, with write-behind persistence.
+ * <p>
+ * A cart is loaded from {@code cart_items} on first access and then read and changed in
+ * memory. Changed carts are written back in one batch per flush interval, and on shutdown.
+ * Idle carts are dropped once their write-back has committed, and the number of carts held is
+ * bounded.
+ * <p>
+ * The store is local to one node, so requests of a user must reach the same node, or the
+ * store must be used on a single node only.
+ */
+@Component
+@Slf4j
+public class CartStore {
+
+    private static final int EVICTION_SAMPLE_SIZE = 16;
+    private static final String DELETE_SQL = "DELETE FROM cart_items WHERE user_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO cart_items (user_id, product_id, quantity) VALUES (?, ?, ?)";
+
+    private final CartItemRepository cartItemRepository;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentMap<String, Cart> carts = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final int maxCarts;
+    private final long idleMillis;
+
+    public CartStore(CartItemRepository cartItemRepository,
+                     UserRepository userRepository,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.cart.max-carts:100000}") int maxCarts,
+                     @Value("${app.cart.idle-ttl:30m}") Duration idleTtl) {
+        this.cartItemRepository = cartItemRepository;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxCarts = maxCarts;
+        this.idleMillis = idleTtl.toMillis();
+        Gauge.builder("cart.store.size", carts, Map::size)
+                .description("Number of carts held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns a snapshot of the user's cart, mapping product ids to quantities.
+     */
+    public LongIntMap read(String username) {
+        return apply(username, null);
+    }
+
+    /**
+     * Applies a change to the user's cart and returns a snapshot of the result. The change
+     * must validate before it modifies the map, so a rejected change leaves the cart intact.
+     */
+    public LongIntMap update(String username, Consumer<LongIntMap> change) {
+        return apply(username, change);
+    }
+
+    /**
+     * Locks the user's cart for a checkout in the current transaction and returns its contents.
+     * The order is placed from these rather than from {@code cart_items}, which may lag behind,
+     * so nothing is written back first and the checkout uses no connection but its own. Until
+     * the transaction completes, changes to the cart wait and flushes skip it. On commit the
+     * cart is emptied and marked changed, so that the next flush deletes any rows a flush
+     * already in progress wrote for it; on rollback it is left as it was.
+     */
+    public CheckoutCart beginCheckout(String username) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Checkout requires an active transaction");
+        }
+        Cart cart = lock(username);
+        try {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    try {
+                        if (status == STATUS_COMMITTED) {
+                            cart.items.clear();
+                            cart.dirty = true;
+                            cart.lastAccess = System.currentTimeMillis();
+                        }
+                    } finally {
+                        cart.lock.unlock();
+                    }
+                }
+            });
+        } catch (RuntimeException e) {
+            cart.lock.unlock();
+            throw e;
+        }
+        return new CheckoutCart(cart.userId, cart.items.copy());
+    }
+
+    /**
+     * Writes back changed carts and drops carts that have been idle for too long.
+     */
+    @Scheduled(fixedDelayString = "${app.cart.flush-interval-ms:1000}")
+    public void flush() {
+        flushCarts(carts.values());
+        long now = System.currentTimeMillis();
+        carts.forEach((username, cart) -> {
+            if (!cart.dirty && now - cart.lastAccess > idleMillis) {
+                tryEvict(username, cart);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushCarts(carts.values());
+    }
+
+    private LongIntMap apply(String username, Consumer<LongIntMap> change) {
+        Cart cart = lock(username);
+        try {
+            if (change != null) {
+                change.accept(cart.items);
+                cart.dirty = true;
+            }
+            cart.lastAccess = System.currentTimeMillis();
+            return cart.items.copy();
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the user's cart with its lock held, loading it if needed.
+     */
+    private Cart lock(String username) {
+        while (true) {
+            Cart cart = cart(username);
+            cart.lock.lock();
+            if (!cart.evicted) {
+                return cart;
+            }
+            cart.lock.unlock();
+        }
+    }
+
+    private Cart cart(String username) {
+        Cart cart = carts.get(username);
+        if (cart != null) {
+            return cart;
+        }
+        Cart loaded = load(username);
+        evictIfFull();
+        Cart existing = carts.putIfAbsent(username, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private Cart load(String username) {
+        List<CartLineDTO> lines = cartItemRepository.findCartLines(username);
+        Long userId = lines.isEmpty()
+                ? userRepository.findIdByUsername(username)
+                        .orElseThrow(() -> new ResourceNotFoundException("User not found with username: " + username))
+                : lines.get(0).getUserId();
+        LongIntMap items = new LongIntMap(lines.size());
+        for (CartLineDTO line : lines) {
+            items.put(line.getProductId(), items.get(line.getProductId()) + line.getQuantity());
+        }
+        return new Cart(userId, items);
+    }
+
+    private void flushCarts(Collection<Cart> candidates) {
+        flushLock.lock();
+        try {
+            List<Snapshot> snapshots = new ArrayList<>();
+            for (Cart cart : candidates) {
+                // A cart being checked out is skipped until the checkout completes
+                if (!cart.dirty || !cart.lock.tryLock()) {
+                    continue;
+                }
+                try {
+                    if (cart.dirty) {
+                        snapshots.add(new Snapshot(cart, cart.items.copy()));
+                        // Changes from here on mark the cart dirty again; until the write commits,
+                        // the cart is not evicted, so it is never reloaded from stale rows
+                        cart.flushing = true;
+                        cart.dirty = false;
+                    }
+                } finally {
+                    cart.lock.unlock();
+                }
+            }
+            if (snapshots.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(snapshots));
+                log.debug("Flushed {} carts", snapshots.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to flush {} carts, will retry", snapshots.size(), e);
+                snapshots.forEach(snapshot -> snapshot.cart().dirty = true);
+            } finally {
+                snapshots.forEach(snapshot -> snapshot.cart().flushing = false);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void write(List<Snapshot> snapshots) {
+        List<Object[]> deletes = new ArrayList<>(snapshots.size());
+        List<Object[]> inserts = new ArrayList<>();
+        for (Snapshot snapshot : snapshots) {
+            long userId = snapshot.cart().userId;
+            deletes.add(new Object[]{userId});
+            snapshot.items().forEach((productId, quantity) -> inserts.add(new Object[]{userId, productId, quantity}));
+        }
+        jdbcTemplate.batchUpdate(DELETE_SQL, deletes);
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+        }
+    }
+
+    private void evictIfFull() {
+        while (carts.size() >= maxCarts) {
+            Map.Entry<String, Cart> oldest = null;
+            Iterator<Map.Entry<String, Cart>> sample = carts.entrySet().iterator();
+            for (int i = 0; i < EVICTION_SAMPLE_SIZE && sample.hasNext(); i++) {
+                Map.Entry<String, Cart> candidate = sample.next();
+                if (!candidate.getValue().dirty && !candidate.getValue().flushing
+                        && (oldest == null || candidate.getValue().lastAccess < oldest.getValue().lastAccess)) {
+                    oldest = candidate;
+                }
+            }
+            // Unsaved carts are never dropped; they become evictable once the next flush commits
+            if (oldest == null || !tryEvict(oldest.getKey(), oldest.getValue())) {
+                return;
+            }
+        }
+    }
+
+    private boolean tryEvict(String username, Cart cart) {
+        if (!cart.lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (cart.dirty || cart.flushing || cart.evicted) {
+                return false;
+            }
+            cart.evicted = true;
+            return carts.remove(username, cart);
+        } finally {
+            cart.lock.unlock();
+        }
+    }
+
+    private static final class Cart {
+
+        private final long userId;
+        private final LongIntMap items;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean dirty;
+        private volatile boolean flushing;
+        private volatile boolean evicted;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Cart(long userId, LongIntMap items) {
+            this.userId = userId;
+            this.items = items;
+        }
+    }
+
+    private record Snapshot(Cart cart, LongIntMap items) {
+    }
+
+    /**
+     * The contents of a cart being checked out, mapping product ids to quantities.
+     */
+    public record CheckoutCart(long userId, LongIntMap items) {
+    }
+}
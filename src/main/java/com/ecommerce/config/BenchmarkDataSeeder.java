@@ -0,0 +1,105 @@
+package com.ecommerce.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Seeds the embedded database of the {@code bench} profile with a synthetic catalog, so
+ * benchmarks and load tests run against a known, reproducible data set.
+ */
+@Component
+@Profile("bench")
+@RequiredArgsConstructor
+@Slf4j
+public class BenchmarkDataSeeder implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final long SEED = 42L;
+    private static final String BENCH_USER_PASSWORD = "bench123";
+    private static final String[] ADJECTIVES = {
+            "Premium", "Compact", "Wireless", "Classic", "Portable", "Smart", "Ergonomic", "Durable",
+            "Lightweight", "Professional", "Vintage", "Eco", "Deluxe", "Modern", "Rugged", "Slim"};
+    private static final String[] NOUNS = {
+            "Laptop", "Headphones", "Backpack", "Jacket", "Blender", "Keyboard", "Camera", "Sneakers",
+            "Watch", "Lamp", "Speaker", "Monitor", "Chair", "Bottle", "Tent", "Novel", "Drill", "Kettle"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${app.bench.seed.categories:20}")
+    private int categoryCount;
+
+    @Value("${app.bench.seed.products:10000}")
+    private int productCount;
+
+    @Value("${app.bench.seed.users:50}")
+    private int userCount;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.currentTimeMillis();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        List<Object[]> categories = new ArrayList<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            categories.add(new Object[]{"Category " + i, "Synthetic benchmark category " + i, now, now});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO categories (name, description, created_at, updated_at) VALUES (?, ?, ?, ?)",
+                categories);
+        List<Long> categoryIds = jdbcTemplate.queryForList("SELECT id FROM categories ORDER BY id", Long.class);
+
+        Random random = new Random(SEED);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < productCount; i++) {
+            String adjective = ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+            String noun = NOUNS[random.nextInt(NOUNS.length)];
+            batch.add(new Object[]{
+                    adjective + " " + noun + " " + i,
+                    "A " + adjective.toLowerCase() + " " + noun.toLowerCase() + " for everyday use, model " + i,
+                    BigDecimal.valueOf(100 + random.nextInt(100_000), 2),
+                    random.nextInt(500),
+                    categoryIds.get(random.nextInt(categoryIds.size())),
+                    now,
+                    now,
+                    now,
+                    random.nextInt(10) != 0});
+            if (batch.size() == BATCH_SIZE || i == productCount - 1) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO products (name, description, price, stock_quantity, category_id, " +
+                        "created_at, updated_at, catalog_updated_at, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                        batch);
+                batch.clear();
+            }
+        }
+
+        // All benchmark users share one password, so it is hashed once
+        String password = passwordEncoder.encode(BENCH_USER_PASSWORD);
+        List<Object[]> users = new ArrayList<>(userCount);
+        for (int i = 1; i <= userCount; i++) {
+            users.add(new Object[]{"bench-user-" + i, "bench-user-" + i + "@ecommerce.local", password,
+                    "Benchmark User " + i, "USER", true, now, now});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, email, password, full_name, role, is_active, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                users);
+
+        log.info("Seeded {} categories, {} products and {} users in {} ms",
+                categoryCount, productCount, userCount, System.currentTimeMillis() - started);
+    }
+}
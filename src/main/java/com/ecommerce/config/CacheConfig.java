@@ -0,0 +1,65 @@
+package com.ecommerce.config;
+
+import com.ecommerce.cache.NearCache;
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.security.AccessToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public NearCache<Long, ProductDTO> productCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.product.max-size:10000}") int maximumSize,
+            @Value("${app.cache.product.ttl:10m}") Duration ttl) {
+        return new NearCache<>("products", maximumSize, ttl, meterRegistry);
+    }
+
+    @Bean
+    public NearCache<Long, CategoryDTO> categoryCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.category.max-size:1000}") int maximumSize,
+            @Value("${app.cache.category.ttl:30m}") Duration ttl) {
+        return new NearCache<>("categories", maximumSize, ttl, meterRegistry);
+    }
+
+    @Bean
+    public NearCache<String, List<CategoryDTO>> categoryListCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.category.ttl:30m}") Duration ttl) {
+        return new NearCache<>("category-lists", 1, ttl, meterRegistry);
+    }
+
+    @Bean
+    public NearCache<String, AccessToken> tokenCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.token.max-size:10000}") int maximumSize,
+            @Value("${app.cache.token.ttl:5m}") Duration ttl) {
+        return new NearCache<>("access-tokens", maximumSize, ttl, meterRegistry);
+    }
+
+    @Bean
+    public NearCache<String, UserDetails> userDetailsCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.user.max-size:10000}") int maximumSize,
+            @Value("${app.cache.user.ttl:5m}") Duration ttl) {
+        return new NearCache<>("users", maximumSize, ttl, meterRegistry);
+    }
+
+    @Bean
+    public NearCache<String, Boolean> verifiedCredentialCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.cache.credentials.max-size:10000}") int maximumSize,
+            @Value("${app.cache.credentials.ttl:5m}") Duration ttl) {
+        return new NearCache<>("verified-credentials", maximumSize, ttl, meterRegistry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ecommerce.config;
+
+import com.ecommerce.model.User;
+import com.ecommerce.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the predefined development users listed by {@code /v1/credentials} in the
+ * {@code users} table, unless they already exist.
+ */
+@Component
+@Profile({"dev", "bench"})
+@RequiredArgsConstructor
+@Slf4j
+public class DevUserSeeder implements ApplicationRunner {
+
+    private final UserRepository userRepository;
+    private final PasswordEncoder passwordEncoder;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        seed("admin", "admin123", "admin@ecommerce.local", "Admin User", User.UserRole.ADMIN);
+        seed("user", "user123", "user@ecommerce.local", "Regular User", User.UserRole.USER);
+        seed("vendor", "vendor123", "vendor@ecommerce.local", "Vendor User", User.UserRole.VENDOR);
+    }
+
+    private void seed(String username, String password, String email, String fullName, User.UserRole role) {
+        if (userRepository.existsByUsername(username)) {
+            return;
+        }
+        userRepository.save(User.builder()
+                .username(username)
+                .password(passwordEncoder.encode(password))
+                .email(email)
+                .fullName(fullName)
+                .role(role)
+                .isActive(true)
+                .build());
+        log.info("Created development user: {}", username);
+    }
+}
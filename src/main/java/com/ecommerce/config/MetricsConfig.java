@@ -0,0 +1,44 @@
+package com.ecommerce.config;
+
+import com.ecommerce.datasource.ReplicaRoutingDataSource;
+import com.ecommerce.metrics.ServiceTimingPostProcessor;
+import com.ecommerce.metrics.StatementTimingDataSource;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Application timers on top of Spring's defaults. Repository query methods are timed by
+ * Spring Data as {@code spring.data.repository.invocations}; percentile histograms for all
+ * timers are switched on in {@code application.properties}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public static ServiceTimingPostProcessor serviceTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ServiceTimingPostProcessor(meterRegistry, List.of(ProductService.class, CategoryService.class));
+    }
+
+    @Bean
+    public static BeanPostProcessor statementTimingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // The routing data source is timed through the proxy in front of it
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementTimingDataSource)
+                        && !(bean instanceof ReplicaRoutingDataSource)) {
+                    return new StatementTimingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.config;
+
+import com.ecommerce.datasource.ReadYourWrites;
+import com.ecommerce.datasource.ReplicaRoutingDataSource;
+import com.ecommerce.datasource.ReplicaSet;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes read-only transactions to read replicas when {@code app.datasource.replica.urls}
+ * is set; without it the single auto-configured data source is used. The primary is
+ * configured by {@code spring.datasource.*} as before, and the replicas share its
+ * {@code spring.datasource.hikari.*} pool settings. Each pool reports {@code hikaricp.*}
+ * metrics under its own pool name.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.urls")
+public class ReplicaDataSourceConfig {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    @Bean
+    public ReadYourWrites readYourWrites(@Value("${app.datasource.replica.read-your-writes-ms:5000}") long windowMillis) {
+        return new ReadYourWrites(windowMillis);
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties,
+            Environment environment,
+            MeterRegistry meterRegistry,
+            ReadYourWrites readYourWrites,
+            @Value("${app.datasource.replica.urls}") List<String> urls,
+            @Value("${app.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password:}}") String password,
+            @Value("${app.datasource.replica.max-lag-ms:5000}") long maxLagMillis,
+            @Value("${app.datasource.replica.check-interval-ms:2000}") long checkIntervalMillis,
+            @Value("${app.datasource.replica.lag-query:" + ReplicaSet.POSTGRES_LAG_QUERY + "}") String lagQuery) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(properties, binder, meterRegistry, "primary",
+                properties.determineUrl(), properties.determineUsername(), properties.determinePassword());
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String name = "replica-" + (i + 1);
+            HikariDataSource replica = pool(properties, binder, meterRegistry, name, urls.get(i).trim(), username, password);
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+
+        ReplicaSet replicaSet = new ReplicaSet(replicas, lagQuery, maxLagMillis, checkIntervalMillis, meterRegistry);
+        return new ReplicaRoutingDataSource(primary, replicaSet, readYourWrites);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder, MeterRegistry meterRegistry,
+                                         String name, String url, String username, String password) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        binder.bind(HIKARI_PREFIX, Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        dataSource.setMetricRegistry(meterRegistry);
+        return dataSource;
+    }
+}
@@ -0,0 +1,56 @@
+package com.ecommerce.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs one line per request for a sample of requests, plus every failed or slow request.
+ * Requests that are neither sampled nor failed nor slow allocate nothing for logging.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class RequestLoggingFilter extends OncePerRequestFilter {
+
+    private final double sampleRate;
+    private final long slowRequestNanos;
+
+    public RequestLoggingFilter(@Value("${app.logging.request-sample-rate:0.01}") double sampleRate,
+                                @Value("${app.logging.slow-request-ms:1000}") long slowRequestMs) {
+        this.sampleRate = sampleRate;
+        this.slowRequestNanos = slowRequestMs * 1_000_000L;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            int status = response.getStatus();
+            if (status >= 500 || elapsed >= slowRequestNanos) {
+                if (log.isWarnEnabled()) {
+                    log.warn("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status,
+                            elapsed / 1_000_000L);
+                }
+            } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate && log.isInfoEnabled()) {
+                log.info("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status,
+                        elapsed / 1_000_000L);
+            }
+        }
+    }
+}
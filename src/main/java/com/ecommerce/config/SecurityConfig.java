@@ -1,18 +1,25 @@
 package com.ecommerce.config;
 
+import com.ecommerce.cache.NearCache;
+import com.ecommerce.limit.RateLimitFilter;
+import com.ecommerce.limit.RateLimiter;
+import com.ecommerce.security.AccessToken;
+import com.ecommerce.security.CachingPasswordEncoder;
+import com.ecommerce.security.JwtAuthenticationFilter;
+import com.ecommerce.security.JwtTokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
 @Configuration
@@ -20,8 +27,8 @@ import org.springframework.web.cors.CorsConfigurationSource;
 public class SecurityConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(NearCache<String, Boolean> verifiedCredentialCache) {
+        return new CachingPasswordEncoder(new BCryptPasswordEncoder(), verifiedCredentialCache);
     }
 
     @Bean
@@ -30,39 +37,28 @@ public class SecurityConfig {
     }
 
     @Bean
-    public UserDetailsService userDetailsService() {
-        // Create predefined test users for development
-        UserDetails adminUser = User.builder()
-                .username("admin")
-                .password(passwordEncoder().encode("admin123"))
-                .roles("ADMIN", "USER")
-                .build();
-
-        UserDetails normalUser = User.builder()
-                .username("user")
-                .password(passwordEncoder().encode("user123"))
-                .roles("USER")
-                .build();
-
-        UserDetails vendorUser = User.builder()
-                .username("vendor")
-                .password(passwordEncoder().encode("vendor123"))
-                .roles("VENDOR", "USER")
-                .build();
-
-        return new InMemoryUserDetailsManager(adminUser, normalUser, vendorUser);
-    }
-
-    @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http, CorsConfigurationSource corsConfigurationSource) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           CorsConfigurationSource corsConfigurationSource,
+                                           JwtTokenService jwtTokenService,
+                                           UserDetailsService userDetailsService,
+                                           NearCache<String, AccessToken> tokenCache,
+                                           RateLimiter rateLimiter,
+                                           ObjectMapper objectMapper) throws Exception {
         http
                 .cors(cors -> cors.configurationSource(corsConfigurationSource))
                 .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                // Bearer tokens are checked with an HMAC before falling back to Basic auth and BCrypt
+                .addFilterBefore(new JwtAuthenticationFilter(jwtTokenService, userDetailsService, tokenCache),
+                        BasicAuthenticationFilter.class)
+                // Added second, so it runs after the bearer token check and before any password check
+                .addFilterBefore(new RateLimitFilter(rateLimiter, objectMapper), BasicAuthenticationFilter.class)
                 .authorizeHttpRequests(authz -> authz
                         .requestMatchers("/v1/auth/login").permitAll()
                         .requestMatchers("/v1/credentials").permitAll()
                         .requestMatchers("/swagger-ui/**", "/v3/api-docs/**", "/h2-console/**").permitAll()
                         .requestMatchers("/actuator/**").permitAll()
+                        .requestMatchers("/v1/inventory/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .httpBasic(basic -> {});
@@ -3,6 +3,8 @@ package com.ecommerce.controller;
 import com.ecommerce.dto.LoginRequest;
 import com.ecommerce.dto.LoginResponse;
 import com.ecommerce.dto.UserDTO;
+import com.ecommerce.metrics.QueryBudget;
+import com.ecommerce.security.JwtTokenService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -11,10 +13,11 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
-import java.util.stream.Collectors;
+import java.util.List;
 
 @RestController
 @RequestMapping("/v1/auth")
@@ -23,10 +26,13 @@ import java.util.stream.Collectors;
 public class AuthController {
 
     private final AuthenticationManager authenticationManager;
+    private final JwtTokenService jwtTokenService;
+    private final UserDetailsService userDetailsService;
 
+    @QueryBudget(1)
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
-        log.info("Login attempt for user: {}", loginRequest.getUsername());
+        log.debug("Login attempt for user: {}", loginRequest.getUsername());
 
         try {
             Authentication authentication = authenticationManager.authenticate(
@@ -38,9 +44,10 @@ public class AuthController {
 
             // Get user details
             String username = authentication.getName();
-            String roles = authentication.getAuthorities().stream()
+            List<String> authorities = authentication.getAuthorities().stream()
                     .map(GrantedAuthority::getAuthority)
-                    .collect(Collectors.joining(", "));
+                    .toList();
+            String roles = String.join(", ", authorities);
 
             // Build user DTO
             UserDTO userDTO = UserDTO.builder()
@@ -48,19 +55,20 @@ public class AuthController {
                     .role(roles)
                     .build();
 
-            // Build login response with simple token (for development, normally use JWT)
+            // Build login response with a signed access token. Authentication erased the password of
+            // its principal, so the user is fetched again, from the cache, for the credential version
             LoginResponse response = LoginResponse.builder()
-                    .accessToken("dev-token-" + System.currentTimeMillis())
+                    .accessToken(jwtTokenService.issue(userDetailsService.loadUserByUsername(username)))
                     .tokenType("Bearer")
                     .user(userDTO)
-                    .expiresIn(86400000L) // 24 hours in milliseconds
+                    .expiresIn(jwtTokenService.getExpirationMillis())
                     .build();
 
-            log.info("Login successful for user: {}", username);
+            log.debug("Login successful for user: {}", username);
             return ResponseEntity.ok(response);
 
         } catch (Exception e) {
-            log.error("Login failed for user: {}", loginRequest.getUsername(), e);
+            log.warn("Login failed for user {}: {}", loginRequest.getUsername(), e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(LoginResponse.builder()
                             .user(UserDTO.builder().build())
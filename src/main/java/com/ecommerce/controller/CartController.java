@@ -0,0 +1,58 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.CartDTO;
+import com.ecommerce.dto.CartItemRequest;
+import com.ecommerce.metrics.QueryBudget;
+import com.ecommerce.service.CartService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/v1/cart")
+@RequiredArgsConstructor
+@Slf4j
+public class CartController {
+
+    private final CartService cartService;
+
+    @QueryBudget(2)
+    @GetMapping
+    public ResponseEntity<CartDTO> getCart(Authentication authentication) {
+        return ResponseEntity.ok(cartService.getCart(authentication.getName()));
+    }
+
+    @QueryBudget(3)
+    @PostMapping("/items")
+    public ResponseEntity<CartDTO> addItem(@Valid @RequestBody CartItemRequest request,
+                                           Authentication authentication) {
+        CartDTO cart = cartService.addItem(authentication.getName(), request.getProductId(), request.getQuantity());
+        return ResponseEntity.ok(cart);
+    }
+
+    @QueryBudget(3)
+    @PutMapping("/items/{productId}")
+    public ResponseEntity<CartDTO> updateItem(@PathVariable Long productId,
+                                              @RequestParam Integer quantity,
+                                              Authentication authentication) {
+        CartDTO cart = cartService.updateItem(authentication.getName(), productId, quantity);
+        return ResponseEntity.ok(cart);
+    }
+
+    @QueryBudget(2)
+    @DeleteMapping("/items/{productId}")
+    public ResponseEntity<CartDTO> removeItem(@PathVariable Long productId, Authentication authentication) {
+        return ResponseEntity.ok(cartService.removeItem(authentication.getName(), productId));
+    }
+
+    @QueryBudget(2)
+    @DeleteMapping
+    public ResponseEntity<Void> clearCart(Authentication authentication) {
+        cartService.clearCart(authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,12 +1,15 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.cache.CatalogVersion;
 import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.metrics.QueryBudget;
 import com.ecommerce.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -18,37 +21,49 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryService categoryService;
+    private final CatalogVersion catalogVersion;
 
+    @QueryBudget(1)
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getAllCategories() {
-        log.info("Retrieving all categories");
+    public ResponseEntity<List<CategoryDTO>> getAllCategories(WebRequest request) {
+        log.debug("Retrieving all categories");
+        if (request.checkNotModified(catalogVersion.categoriesETag(), catalogVersion.categoriesLastModified())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getAllCategories());
     }
 
+    @QueryBudget(1)
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable Long id) {
-        log.info("Retrieving category with id: {}", id);
+    public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable Long id, WebRequest request) {
+        log.debug("Retrieving category with id: {}", id);
+        if (request.checkNotModified(catalogVersion.categoriesETag(), catalogVersion.categoriesLastModified())) {
+            return null;
+        }
         return ResponseEntity.ok(categoryService.getCategoryById(id));
     }
 
+    @QueryBudget(3)
     @PostMapping
     public ResponseEntity<CategoryDTO> createCategory(@Valid @RequestBody CategoryDTO categoryDTO) {
-        log.info("Creating category: {}", categoryDTO.getName());
+        log.debug("Creating category: {}", categoryDTO.getName());
         CategoryDTO created = categoryService.createCategory(categoryDTO);
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    @QueryBudget(4)
     @PutMapping("/{id}")
     public ResponseEntity<CategoryDTO> updateCategory(
             @PathVariable Long id,
             @Valid @RequestBody CategoryDTO categoryDTO) {
-        log.info("Updating category with id: {}", id);
+        log.debug("Updating category with id: {}", id);
         return ResponseEntity.ok(categoryService.updateCategory(id, categoryDTO));
     }
 
+    @QueryBudget(5)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteCategory(@PathVariable Long id) {
-        log.info("Deleting category with id: {}", id);
+        log.debug("Deleting category with id: {}", id);
         categoryService.deleteCategory(id);
         return ResponseEntity.noContent().build();
     }
@@ -1,5 +1,6 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.metrics.QueryBudget;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -15,9 +16,10 @@ import java.util.Map;
 @Slf4j
 public class CredentialsController {
 
+    @QueryBudget(0)
     @GetMapping("/credentials")
     public ResponseEntity<Map<String, Object>> getTestCredentials() {
-        log.info("Credentials endpoint accessed - returning test credentials for development");
+        log.debug("Credentials endpoint accessed - returning test credentials for development");
 
         Map<String, Object> response = new HashMap<>();
         response.put("message", "Test credentials for development use only");
@@ -0,0 +1,26 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.inventory.InventoryLedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/v1/inventory")
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryController {
+
+    private final InventoryLedger inventoryLedger;
+
+    // No query budget: the statement count grows with the number of products the node leased
+    @DeleteMapping("/leases/{nodeId}")
+    public ResponseEntity<Map<String, Object>> returnLeases(@PathVariable String nodeId) {
+        log.info("Returning the stock leases of node {}", nodeId);
+        int returned = inventoryLedger.returnLeases(nodeId);
+        return ResponseEntity.ok(Map.of("nodeId", nodeId, "returned", returned));
+    }
+}
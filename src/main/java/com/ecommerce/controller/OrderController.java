@@ -0,0 +1,31 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.metrics.QueryBudget;
+import com.ecommerce.service.CheckoutService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/v1/orders")
+@RequiredArgsConstructor
+@Slf4j
+public class OrderController {
+
+    private final CheckoutService checkoutService;
+
+    @QueryBudget(7)
+    @PostMapping("/checkout")
+    public ResponseEntity<OrderDTO> checkout(Authentication authentication) {
+        log.debug("Checkout requested by user: {}", authentication.getName());
+
+        OrderDTO order = checkoutService.checkout(authentication.getName());
+        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+    }
+}
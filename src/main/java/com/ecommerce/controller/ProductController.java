@@ -1,6 +1,17 @@
 package com.ecommerce.controller;
 
+import com.ecommerce.cache.CatalogVersion;
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.FacetedPage;
+import com.ecommerce.dto.ImportReport;
+import com.ecommerce.dto.PageDTO;
 import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.metrics.QueryBudget;
+import com.ecommerce.service.CatalogFormat;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductExportService;
+import com.ecommerce.service.ProductImportService;
 import com.ecommerce.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -8,12 +19,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -22,90 +41,228 @@ import java.util.List;
 @Slf4j
 public class ProductController {
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType(CatalogFormat.CSV_VALUE);
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductExportService productExportService;
+    private final CategoryService categoryService;
+    private final CatalogVersion catalogVersion;
 
+    @QueryBudget(2)
     @GetMapping
-    public ResponseEntity<Page<ProductDTO>> getAllProducts(
+    public ResponseEntity<PageDTO<ProductDTO>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            WebRequest request) {
+
+        log.debug("Getting all products - page: {}, size: {}", page, size);
 
-        log.info("Getting all products - page: {}, size: {}", page, size);
+        if (request.checkNotModified(catalogVersion.productsETag(), catalogVersion.productsLastModified())) {
+            return null;
+        }
 
         Pageable pageable = PageRequest.of(page, size, Sort.by(direction, sortBy));
         Page<ProductDTO> products = productService.getAllProducts(pageable);
 
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(PageDTO.from(products));
     }
 
+    @QueryBudget(1)
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<ProductDTO>> scrollProducts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) Sort.Direction direction,
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Long categoryId,
+            WebRequest request) {
+
+        log.debug("Scrolling products - size: {}, sortBy: {}", size, sortBy);
+
+        if (request.checkNotModified(catalogVersion.productsETag(), catalogVersion.productsLastModified())) {
+            return null;
+        }
+
+        ProductFilter filter = ProductFilter.builder()
+                .keyword(keyword)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .categoryId(categoryId)
+                .build();
+
+        return ResponseEntity.ok(productService.scrollProducts(filter, cursor, size, sortBy, direction));
+    }
+
+    @QueryBudget(2)
+    @GetMapping("/export")
+    public void exportProducts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) Long categoryId,
+            HttpServletResponse response) throws IOException {
+
+        CatalogFormat catalogFormat = CatalogFormat.fromName(format);
+        if (categoryId != null) {
+            // Fails with 404 before any of the export is written
+            categoryService.getCategoryById(categoryId);
+        }
+        log.debug("Exporting products as {} - category: {}", catalogFormat, categoryId);
+
+        response.setContentType(catalogFormat.getMediaType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("products." + catalogFormat.getExtension())
+                .build()
+                .toString());
+        productExportService.exportProducts(categoryId, catalogFormat, response.getOutputStream());
+    }
+
+    @QueryBudget(2)
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        log.info("Getting product with id: {}", id);
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id, WebRequest request) {
+        log.debug("Getting product with id: {}", id);
 
+        // A cached product is revalidated before the service is called; otherwise the
+        // product is loaded first. If the cached product changes in between, the ETag sent is
+        // older than the body, and the next revalidation returns the product again
+        String eTag = catalogVersion.productETag(id);
+        if (eTag != null && request.checkNotModified(eTag)) {
+            return null;
+        }
         ProductDTO product = productService.getProductById(id);
+        if (eTag == null && request.checkNotModified(catalogVersion.productETag(product))) {
+            return null;
+        }
         return ResponseEntity.ok(product);
     }
 
+    @QueryBudget(3)
     @PostMapping
     public ResponseEntity<ProductDTO> createProduct(@Valid @RequestBody ProductDTO productDTO) {
-        log.info("Creating new product: {}", productDTO.getName());
+        log.debug("Creating new product: {}", productDTO.getName());
 
         ProductDTO createdProduct = productService.createProduct(productDTO);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
+    // No query budget: the statement count grows with the number of chunks imported
+    @PostMapping(value = "/import", consumes = {CatalogFormat.NDJSON_VALUE, CatalogFormat.CSV_VALUE})
+    public ResponseEntity<ImportReport> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body) {
+
+        CatalogFormat format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+                ? CatalogFormat.CSV
+                : CatalogFormat.NDJSON;
+        log.debug("Importing products from {}", format);
+
+        ImportReport report = productImportService.importProducts(body, format);
+        return ResponseEntity.ok(report);
+    }
+
+    @QueryBudget(5)
     @PutMapping("/{id}")
     public ResponseEntity<ProductDTO> updateProduct(
             @PathVariable Long id,
             @Valid @RequestBody ProductDTO productDTO) {
 
-        log.info("Updating product with id: {}", id);
+        log.debug("Updating product with id: {}", id);
 
         ProductDTO updatedProduct = productService.updateProduct(id, productDTO);
         return ResponseEntity.ok(updatedProduct);
     }
 
+    @QueryBudget(3)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteProduct(@PathVariable Long id) {
-        log.info("Deleting product with id: {}", id);
+        log.debug("Deleting product with id: {}", id);
 
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
 
+    @QueryBudget(2)
     @GetMapping("/search")
-    public ResponseEntity<Page<ProductDTO>> searchProducts(
+    public ResponseEntity<PageDTO<ProductDTO>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest request) {
 
-        log.info("Searching products with keyword: {}", keyword);
+        log.debug("Searching products with keyword: {}", keyword);
+
+        if (request.checkNotModified(catalogVersion.productsETag(), catalogVersion.productsLastModified())) {
+            return null;
+        }
 
         Pageable pageable = PageRequest.of(page, size);
         Page<ProductDTO> products = productService.searchProducts(keyword, pageable);
 
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(PageDTO.from(products));
     }
 
+    @QueryBudget(2)
     @GetMapping("/filter/price")
-    public ResponseEntity<Page<ProductDTO>> filterByPrice(
+    public ResponseEntity<PageDTO<ProductDTO>> filterByPrice(
             @RequestParam BigDecimal minPrice,
             @RequestParam BigDecimal maxPrice,
+            @RequestParam(required = false) Long categoryId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+            WebRequest request) {
+
+        log.debug("Filtering products by price: {} - {}", minPrice, maxPrice);
 
-        log.info("Filtering products by price: {} - {}", minPrice, maxPrice);
+        if (request.checkNotModified(catalogVersion.productsETag(), catalogVersion.productsLastModified())) {
+            return null;
+        }
 
+        Pageable pageable = PageRequest.of(page, size, Sort.by(direction, "price", "id"));
+        Page<ProductDTO> products = productService.filterByPrice(categoryId, minPrice, maxPrice, pageable);
+
+        return ResponseEntity.ok(PageDTO.from(products));
+    }
+
+    @QueryBudget(2)
+    @GetMapping("/facets")
+    public ResponseEntity<FacetedPage<ProductDTO>> facetedSearch(
+            @RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean inStock,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "price") String sortBy,
+            @RequestParam(defaultValue = "ASC") Sort.Direction direction) {
+
+        log.debug("Faceted search with keyword: {}, category: {}", keyword, categoryId);
+
+        ProductFilter filter = ProductFilter.builder()
+                .keyword(keyword)
+                .categoryId(categoryId)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .build();
         Pageable pageable = PageRequest.of(page, size);
-        Page<ProductDTO> products = productService.filterByPrice(minPrice, maxPrice, pageable);
 
-        return ResponseEntity.ok(products);
+        return ResponseEntity.ok(productService.facetedSearch(filter, inStock, sortBy, direction, pageable));
     }
 
+    @QueryBudget(2)
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable Long categoryId) {
-        log.info("Getting products for category: {}", categoryId);
+    public ResponseEntity<List<ProductDTO>> getProductsByCategory(@PathVariable Long categoryId, WebRequest request) {
+        log.debug("Getting products for category: {}", categoryId);
+
+        if (request.checkNotModified(catalogVersion.productsETag(), catalogVersion.productsLastModified())) {
+            return null;
+        }
 
         List<ProductDTO> products = productService.getProductsByCategory(categoryId);
         return ResponseEntity.ok(products);
@@ -0,0 +1,35 @@
+package com.ecommerce.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Sends the reads of an action to the primary even in read-only transactions, for reads
+ * whose result outlives the request, such as cache loads: a replica that has not applied a
+ * write yet would otherwise keep the old value cached long after the write.
+ * <p>
+ * Applies to connections taken while the action runs; a transaction that has already taken
+ * its connection keeps it.
+ */
+public final class PrimaryReads {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private PrimaryReads() {
+    }
+
+    public static <T> T call(Supplier<T> action) {
+        if (ACTIVE.get() != null) {
+            return action.get();
+        }
+        ACTIVE.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            ACTIVE.remove();
+        }
+    }
+
+    static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
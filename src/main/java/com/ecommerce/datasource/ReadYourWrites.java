@@ -0,0 +1,75 @@
+package com.ecommerce.datasource;
+
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers which users committed a write recently, so that their reads can go to the
+ * primary until the replicas have had time to apply it. Writes are recorded per
+ * authenticated username as the transaction manager commits them; anonymous writes are not
+ * tracked. The record is local to this node.
+ */
+public class ReadYourWrites implements TransactionExecutionListener {
+
+    private static final long EVICTION_INTERVAL_MILLIS = 60_000;
+
+    private final ConcurrentMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+    private final long windowNanos;
+
+    /**
+     * @param windowMillis how long after a write the user reads from the primary; 0 disables it
+     */
+    public ReadYourWrites(long windowMillis) {
+        this.windowNanos = windowMillis * 1_000_000;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (windowNanos == 0 || commitFailure != null || transaction.isReadOnly()) {
+            return;
+        }
+        String username = currentUsername();
+        if (username != null) {
+            lastWrites.put(username, System.nanoTime());
+        }
+    }
+
+    /**
+     * Returns whether the current user committed a write within the window.
+     */
+    public boolean isRecentWriter() {
+        if (lastWrites.isEmpty()) {
+            return false;
+        }
+        String username = currentUsername();
+        if (username == null) {
+            return false;
+        }
+        Long writtenAt = lastWrites.get(username);
+        return writtenAt != null && System.nanoTime() - writtenAt < windowNanos;
+    }
+
+    @Scheduled(fixedDelay = EVICTION_INTERVAL_MILLIS)
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+    }
+
+    @Nullable
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,68 @@
+package com.ecommerce.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends the connections of read-only transactions to a usable read replica, and all other
+ * connections to the primary. Reads also go to the primary when no replica is usable, inside
+ * {@link PrimaryReads#call}, and when the current user wrote recently according to
+ * {@link ReadYourWrites}.
+ * <p>
+ * Must be used behind a {@code LazyConnectionDataSourceProxy}: the transaction manager takes
+ * its connection before it marks the transaction read-only, and the proxy defers choosing
+ * the target until the first statement.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    static final String PRIMARY = "primary";
+
+    private final DataSource primary;
+    private final ReplicaSet replicaSet;
+    private final ReadYourWrites readYourWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaSet replicaSet, ReadYourWrites readYourWrites) {
+        this.primary = primary;
+        this.replicaSet = replicaSet;
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Map<Object, Object> targets = new HashMap<>(replicaSet.dataSources());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        super.afterPropertiesSet();
+        replicaSet.start();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || PrimaryReads.isActive()
+                || readYourWrites.isRecentWriter()) {
+            return PRIMARY;
+        }
+        String replica = replicaSet.next();
+        return replica != null ? replica : PRIMARY;
+    }
+
+    @Override
+    public void close() {
+        replicaSet.close();
+        if (primary instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close the primary data source", e);
+            }
+        }
+    }
+}
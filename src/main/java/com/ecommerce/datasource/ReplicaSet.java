@@ -0,0 +1,171 @@
+package com.ecommerce.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The read replicas of the primary database, with their health and replication lag.
+ * <p>
+ * Each replica is checked periodically with a query that returns its lag in milliseconds,
+ * or NULL if the lag is unknown. A replica takes reads only while the check succeeds and the lag is within the limit; a
+ * replica that cannot be reached or falls behind is skipped until a later check shows it
+ * has caught up. Replicas start out unused until their first check has passed. The lag is
+ * published as {@code app.datasource.replica.lag}, tagged by replica.
+ */
+@Slf4j
+public class ReplicaSet implements AutoCloseable {
+
+    /**
+     * Lag of a PostgreSQL standby: 0 when it has replayed all WAL it received, which keeps an
+     * idle primary from looking like lag, and 0 on a server that is not a standby. NULL when
+     * its WAL receiver is not streaming, since it then cannot tell how far behind it is;
+     * seeing the receiver status takes the {@code pg_read_all_stats} role.
+     */
+    public static final String POSTGRES_LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 "
+            + "WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END";
+
+    private static final int CHECK_TIMEOUT_SECONDS = 2;
+
+    private final List<Replica> replicas;
+    private final String lagQuery;
+    private final long maxLagMillis;
+    private final long checkIntervalMillis;
+    private final AtomicInteger turn = new AtomicInteger();
+    private ScheduledExecutorService checker;
+
+    public ReplicaSet(Map<String, DataSource> dataSources, String lagQuery, long maxLagMillis,
+                      long checkIntervalMillis, MeterRegistry meterRegistry) {
+        this.replicas = dataSources.entrySet().stream()
+                .map(entry -> new Replica(entry.getKey(), entry.getValue()))
+                .toList();
+        this.lagQuery = lagQuery;
+        this.maxLagMillis = maxLagMillis;
+        this.checkIntervalMillis = checkIntervalMillis;
+        for (Replica replica : replicas) {
+            Gauge.builder("app.datasource.replica.lag", replica, r -> r.lagMillis)
+                    .description("Replication lag of the read replica, NaN while it cannot be reached or is not replicating")
+                    .baseUnit("milliseconds")
+                    .tag("replica", replica.name)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Returns the data sources of the replicas by name.
+     */
+    public Map<String, DataSource> dataSources() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.name, replica.dataSource));
+        return dataSources;
+    }
+
+    /**
+     * Starts checking the replicas, the first check right away.
+     */
+    public void start() {
+        // A thread of its own, so that an unreachable replica cannot hold up the shared task scheduler
+        checker = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("replica-check").daemon().factory());
+        checker.scheduleWithFixedDelay(this::check, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the name of the next usable replica in turn, or {@code null} if none is usable.
+     */
+    public String next() {
+        int count = replicas.size();
+        int start = turn.getAndIncrement();
+        for (int i = 0; i < count; i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, count));
+            if (replica.usable) {
+                return replica.name;
+            }
+        }
+        return null;
+    }
+
+    void check() {
+        for (Replica replica : replicas) {
+            check(replica);
+        }
+    }
+
+    private void check(Replica replica) {
+        double lag;
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                lag = Double.NaN;
+                if (resultSet.next()) {
+                    double value = resultSet.getDouble(1);
+                    lag = resultSet.wasNull() ? Double.NaN : value;
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Check of read replica {} failed", replica.name, e);
+            lag = Double.NaN;
+        }
+
+        boolean usable = lag <= maxLagMillis;
+        replica.lagMillis = lag;
+        if (usable == replica.usable) {
+            return;
+        }
+        replica.usable = usable;
+        if (usable) {
+            log.info("Read replica {} is in use, {} ms behind the primary", replica.name, Math.round(lag));
+        } else if (Double.isNaN(lag)) {
+            log.warn("Read replica {} cannot be reached or is not replicating, its reads go to the primary",
+                    replica.name);
+        } else {
+            log.warn("Read replica {} is {} ms behind the primary, over the limit of {} ms; its reads go to the primary",
+                    replica.name, Math.round(lag), maxLagMillis);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (checker != null) {
+            checker.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.warn("Failed to close read replica {}", replica.name, e);
+                }
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean usable;
+        private volatile double lagMillis = Double.NaN;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
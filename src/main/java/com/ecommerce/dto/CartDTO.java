@@ -0,0 +1,19 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartDTO {
+
+    private List<CartLineDTO> items;
+
+    private int totalQuantity;
+
+    private BigDecimal totalAmount;
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartLineDTO {
+
+    private Long userId;
+
+    private Long productId;
+
+    private String productName;
+
+    private Integer quantity;
+
+    private BigDecimal unitPrice;
+
+    private Boolean productActive;
+}
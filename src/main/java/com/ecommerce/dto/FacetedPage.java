@@ -0,0 +1,14 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacetedPage<T> {
+
+    private PageDTO<T> results;
+
+    private ProductFacets facets;
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportReport {
+
+    private long received;
+
+    private long imported;
+
+    private long failed;
+
+    private long durationMs;
+
+    @Builder.Default
+    private List<RowError> errors = new ArrayList<>();
+
+    private boolean errorsTruncated;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        private long line;
+
+        private String message;
+    }
+}
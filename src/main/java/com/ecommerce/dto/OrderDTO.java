@@ -0,0 +1,26 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderDTO {
+
+    private Long id;
+
+    private Long userId;
+
+    private BigDecimal totalAmount;
+
+    private String status;
+
+    private List<OrderItemDTO> items;
+
+    private LocalDateTime createdAt;
+}
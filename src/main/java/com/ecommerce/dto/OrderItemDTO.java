@@ -0,0 +1,22 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderItemDTO {
+
+    private Long productId;
+
+    private String productName;
+
+    private Integer quantity;
+
+    private BigDecimal unitPrice;
+
+    private BigDecimal totalPrice;
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Page of results as sent to clients. Carries only what a client needs to page through the
+ * results, instead of the sort and pageable details Spring's {@link Page} serializes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PageDTO<T> {
+
+    private List<T> content;
+
+    private int page;
+
+    private int size;
+
+    private long totalElements;
+
+    private int totalPages;
+
+    public static <T> PageDTO<T> from(Page<T> page) {
+        return PageDTO.<T>builder()
+                .content(page.getContent())
+                .page(page.getNumber())
+                .size(page.getSize())
+                .totalElements(page.getTotalElements())
+                .totalPages(page.getTotalPages())
+                .build();
+    }
+}
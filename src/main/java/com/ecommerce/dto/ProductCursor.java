@@ -0,0 +1,94 @@
+package com.ecommerce.dto;
+
+import com.ecommerce.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Position in a keyset-paginated product listing: the sort key and direction, plus the sort
+ * value and id of the last row returned. Clients only see it as an opaque token.
+ *
+ * @param sortKey   the sort key
+ * @param direction the sort direction
+ * @param lastValue the sort value of the last row, or {@code null} for the first page
+ * @param lastId    the id of the last row, or {@code null} for the first page
+ */
+public record ProductCursor(SortKey sortKey, Sort.Direction direction, Comparable<?> lastValue, Long lastId) {
+
+    private static final String SEPARATOR = "|";
+    private static final String INVALID_CURSOR_MSG = "Invalid cursor";
+
+    public static ProductCursor first(String sortBy, Sort.Direction direction) {
+        return new ProductCursor(SortKey.from(sortBy), direction, null, null);
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split("\\|", 4);
+            SortKey sortKey = SortKey.valueOf(parts[0]);
+            return new ProductCursor(sortKey, Sort.Direction.valueOf(parts[1]),
+                    sortKey.parse(parts[3]), Long.valueOf(parts[2]));
+        } catch (RuntimeException e) {
+            throw new BadRequestException(INVALID_CURSOR_MSG, e);
+        }
+    }
+
+    public boolean hasPosition() {
+        return lastId != null;
+    }
+
+    public ProductCursor after(ProductDTO last) {
+        return new ProductCursor(sortKey, direction, sortKey.extract(last), last.getId());
+    }
+
+    public String encode() {
+        String raw = sortKey.name() + SEPARATOR + direction.name() + SEPARATOR + lastId + SEPARATOR + lastValue;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Product attributes that keyset pagination can order by. Each is non-null and
+     * combined with the id to give a total order.
+     */
+    public enum SortKey {
+        ID("id", ProductDTO::getId, Long::valueOf),
+        NAME("name", ProductDTO::getName, value -> value),
+        PRICE("price", ProductDTO::getPrice, BigDecimal::new);
+
+        private final String attribute;
+        private final Function<ProductDTO, Comparable<?>> extractor;
+        private final Function<String, Comparable<?>> parser;
+
+        SortKey(String attribute, Function<ProductDTO, Comparable<?>> extractor, Function<String, Comparable<?>> parser) {
+            this.attribute = attribute;
+            this.extractor = extractor;
+            this.parser = parser;
+        }
+
+        public String getAttribute() {
+            return attribute;
+        }
+
+        public static SortKey from(String sortBy) {
+            for (SortKey key : values()) {
+                if (key.attribute.equalsIgnoreCase(sortBy)) {
+                    return key;
+                }
+            }
+            throw new BadRequestException("Unsupported sort field for cursor pagination: " + sortBy);
+        }
+
+        private Comparable<?> extract(ProductDTO product) {
+            return extractor.apply(product);
+        }
+
+        private Comparable<?> parse(String value) {
+            return parser.apply(value);
+        }
+    }
+}
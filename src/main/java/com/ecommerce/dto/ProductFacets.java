@@ -0,0 +1,57 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts of matching products per facet value. Each facet is counted with the filters on the
+ * other facets applied but not its own, so a client can show how many products each
+ * alternative value would return.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFacets {
+
+    @Builder.Default
+    private List<CategoryCount> categories = new ArrayList<>();
+
+    @Builder.Default
+    private List<PriceRangeCount> priceRanges = new ArrayList<>();
+
+    private long inStock;
+
+    private long outOfStock;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CategoryCount {
+
+        private Long categoryId;
+
+        private String categoryName;
+
+        private long count;
+    }
+
+    /**
+     * Products priced from {@code min} (inclusive) up to {@code max} (exclusive); {@code max}
+     * is {@code null} for the highest range.
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PriceRangeCount {
+
+        private BigDecimal min;
+
+        private BigDecimal max;
+
+        private long count;
+    }
+}
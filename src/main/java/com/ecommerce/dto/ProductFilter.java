@@ -0,0 +1,20 @@
+package com.ecommerce.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductFilter {
+
+    private String keyword;
+
+    private BigDecimal minPrice;
+
+    private BigDecimal maxPrice;
+
+    private Long categoryId;
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.event;
+
+import com.ecommerce.dto.CategoryDTO;
+
+/**
+ * Published when a category is created, updated or deleted.
+ *
+ * @param categoryId the category ID
+ * @param category   the category as committed, or {@code null} if it was deleted
+ */
+public record CategoryChangedEvent(Long categoryId, CategoryDTO category) {
+
+    public static CategoryChangedEvent saved(CategoryDTO category) {
+        return new CategoryChangedEvent(category.getId(), category);
+    }
+
+    public static CategoryChangedEvent deleted(Long categoryId) {
+        return new CategoryChangedEvent(categoryId, null);
+    }
+
+    public boolean isDeleted() {
+        return category == null;
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.event;
+
+import com.ecommerce.dto.ProductDTO;
+
+/**
+ * Published when a product is created, updated or deleted.
+ *
+ * @param productId the product ID
+ * @param product   the product as committed, or {@code null} if it was deleted
+ */
+public record ProductChangedEvent(Long productId, ProductDTO product) {
+
+    public static ProductChangedEvent saved(ProductDTO product) {
+        return new ProductChangedEvent(product.getId(), product);
+    }
+
+    public static ProductChangedEvent deleted(Long productId) {
+        return new ProductChangedEvent(productId, null);
+    }
+
+    public boolean isDeleted() {
+        return product == null;
+    }
+}
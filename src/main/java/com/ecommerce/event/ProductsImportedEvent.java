@@ -0,0 +1,14 @@
+package com.ecommerce.event;
+
+import com.ecommerce.dto.ProductDTO;
+
+import java.util.List;
+
+/**
+ * Published once per committed chunk of a bulk import, in place of a
+ * {@link ProductChangedEvent} per product, so listeners can apply the chunk in one step.
+ *
+ * @param products the created products as committed, with their generated IDs
+ */
+public record ProductsImportedEvent(List<ProductDTO> products) {
+}
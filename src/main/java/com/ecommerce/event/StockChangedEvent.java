@@ -0,0 +1,11 @@
+package com.ecommerce.event;
+
+import java.util.Collection;
+
+/**
+ * Published when the stock quantity of one or more products changes.
+ *
+ * @param productIds the IDs of the affected products
+ */
+public record StockChangedEvent(Collection<Long> productIds) {
+}
@@ -1,8 +1,12 @@
 package com.ecommerce.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.JDBCConnectionException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -22,7 +26,8 @@ public class GlobalExceptionHandler {
             ResourceNotFoundException ex,
             HttpServletRequest request) {
 
-        log.error("Resource not found: {}", ex.getMessage());
+        // Expected client errors: the message is enough, a stack trace would only add cost
+        log.debug("Resource not found: {}", ex.getMessage());
 
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.NOT_FOUND.value(),
@@ -40,7 +45,7 @@ public class GlobalExceptionHandler {
             BadRequestException ex,
             HttpServletRequest request) {
 
-        log.error("Bad request: {}", ex.getMessage());
+        log.debug("Bad request: {}", ex.getMessage());
 
         ErrorResponse errorResponse = new ErrorResponse(
                 HttpStatus.BAD_REQUEST.value(),
@@ -58,7 +63,7 @@ public class GlobalExceptionHandler {
             MethodArgumentNotValidException ex,
             HttpServletRequest request) {
 
-        log.error("Validation error: {}", ex.getMessage());
+        log.debug("Validation failed for {} fields", ex.getErrorCount());
 
         Map<String, Object> errorMap = new HashMap<>();
         errorMap.put("status", HttpStatus.BAD_REQUEST.value());
@@ -78,6 +83,50 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorMap, HttpStatus.BAD_REQUEST);
     }
 
+    // With a LazyConnectionDataSourceProxy the connection is taken at the first statement, so an
+    // exhausted pool surfaces as Hibernate's connection failure, translated by Spring or, where
+    // it escapes translation, as it is
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class,
+            JDBCConnectionException.class})
+    public ResponseEntity<ErrorResponse> handleConnectionUnavailable(
+            RuntimeException ex,
+            HttpServletRequest request) {
+
+        log.warn("Database connection unavailable: {}", ex.getMessage());
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "The service is busy, please retry shortly",
+                "Service Unavailable"
+        );
+        errorResponse.setPath(request.getRequestURI());
+        errorResponse.setTimestamp(LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailableException(
+            ServiceUnavailableException ex,
+            HttpServletRequest request) {
+
+        log.debug("Service unavailable: {}", ex.getMessage());
+
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                ex.getMessage(),
+                "Service Unavailable"
+        );
+        errorResponse.setPath(request.getRequestURI());
+        errorResponse.setTimestamp(LocalDateTime.now());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(errorResponse);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGlobalException(
             Exception ex,
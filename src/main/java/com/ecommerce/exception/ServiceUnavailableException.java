@@ -0,0 +1,12 @@
+package com.ecommerce.exception;
+
+/**
+ * Thrown when a request cannot be served yet, for example while an in-memory index is still
+ * loading. Answered with 503 and a {@code Retry-After} header.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
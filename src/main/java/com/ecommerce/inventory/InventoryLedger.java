@@ -0,0 +1,451 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.ecommerce.model.StockLease;
+import com.ecommerce.model.StockSale;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.StockLeaseRepository;
+import com.ecommerce.repository.StockSaleRepository;
+import com.ecommerce.util.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory stock ledger for hot products.
+ * <p>
+ * Instead of updating the {@code products} row on every sale, the ledger claims blocks of
+ * units from the database (a conditional decrement recorded as a {@link StockLease}) and sells
+ * them locally with atomic counters. Every sale is recorded in {@code stock_sales} in its own
+ * transaction, an insert that no other sale waits for. Restocks and idle surplus are written
+ * back in periodic batches, and the same flush folds the recorded sales into the leases.
+ * Because a unit is removed from {@code products.stock_quantity} before it can be sold
+ * locally, no node can sell more than the database holds.
+ * <p>
+ * A block is claimed in the transaction of the sale that runs short, on its connection, and
+ * its surplus is shared once that transaction commits. Claiming in a transaction of its own
+ * would hold a second connection per sale and could exhaust the pool under load.
+ * <p>
+ * A claim waits for the product row while holding the slot's refill lock, a wait the database
+ * cannot see. Baskets therefore reserve their lines in product id order, as the batch
+ * decrement and the flush write theirs, and a claim gives up after
+ * {@link ProductRepository#CLAIM_TIMEOUT_MS}, failing the sale with a retryable error rather
+ * than waiting for a lock held by a transaction that waits for this one.
+ * <p>
+ * After a crash, the units leased to a node and not recorded as sold are returned to stock
+ * when the node starts again under the same id, or by {@link #returnLeases(String)} for a node
+ * that will not come back. A sale that committed is always recorded, so no unit is sold twice.
+ */
+@Component
+@Slf4j
+public class InventoryLedger {
+
+    private static final String INSERT_SALE_SQL =
+            "INSERT INTO stock_sales (node_id, product_id, quantity) VALUES (?, ?, ?)";
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final StockLeaseRepository stockLeaseRepository;
+    private final StockSaleRepository stockSaleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ConcurrentMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    // Set once a sale commits, so that an idle flush does not query stock_sales
+    private final AtomicBoolean salesPending = new AtomicBoolean(true);
+
+    private final boolean enabled;
+    private final String nodeId;
+    private final int blockSize;
+    private final long idleReturnMillis;
+
+    public InventoryLedger(ProductRepository productRepository,
+                           StockLeaseRepository stockLeaseRepository,
+                           StockSaleRepository stockSaleRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.inventory.ledger.enabled:false}") boolean enabled,
+                           @Value("${app.inventory.ledger.node-id:}") String nodeId,
+                           @Value("${app.inventory.ledger.block-size:50}") int blockSize,
+                           @Value("${app.inventory.ledger.idle-return-ms:30000}") long idleReturnMillis) {
+        if (enabled && nodeId.isBlank()) {
+            // Leases are recovered by node id after a restart, so the id must survive one
+            throw new IllegalStateException("app.inventory.ledger.node-id must be set to a stable id " +
+                    "unique to this node when the inventory ledger is enabled");
+        }
+        this.productRepository = productRepository;
+        this.stockLeaseRepository = stockLeaseRepository;
+        this.stockSaleRepository = stockSaleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.blockSize = blockSize;
+        this.idleReturnMillis = idleReturnMillis;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserves units of one product in the surrounding transaction. The reservation is
+     * returned to the ledger if the transaction rolls back.
+     *
+     * @return true if the units were reserved, false if the product is missing or out of stock
+     */
+    public boolean tryDecrement(Long productId, int quantity) {
+        Reservation reservation = acquire(productId, quantity);
+        if (reservation == null) {
+            return false;
+        }
+        recordSales(List.of(reservation));
+        return true;
+    }
+
+    /**
+     * Reserves all lines of a basket in the surrounding transaction, or none of them. Lines
+     * are reserved in product id order.
+     *
+     * @return true if every line was reserved, false otherwise
+     */
+    public boolean tryDecrementAll(Map<Long, Integer> quantities) {
+        List<Reservation> acquired = new ArrayList<>(quantities.size());
+        try {
+            for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+                Reservation reservation = acquire(line.getKey(), line.getValue());
+                if (reservation == null) {
+                    acquired.forEach(Reservation::cancel);
+                    return false;
+                }
+                acquired.add(reservation);
+            }
+        } catch (RuntimeException e) {
+            acquired.forEach(Reservation::cancel);
+            throw e;
+        }
+        recordSales(acquired);
+        return true;
+    }
+
+    /**
+     * Queues a restock to be written to the database with the next flush, once the
+     * surrounding transaction commits.
+     */
+    public void increment(Long productId, int quantity) {
+        TransactionCallbacks.afterCommit(() -> slot(productId).restocked.addAndGet(quantity));
+    }
+
+    /**
+     * Writes restocks and idle surplus back to the database, and folds the recorded sales into
+     * the leases, in one transaction.
+     */
+    @Scheduled(fixedDelayString = "${app.inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (enabled) {
+            flush(false);
+        }
+    }
+
+    /**
+     * Returns the units of leases left behind by a previous run of this node, before this run
+     * can claim any.
+     */
+    @PostConstruct
+    public void recover() {
+        if (enabled) {
+            release(nodeId);
+        }
+    }
+
+    /**
+     * Returns every unit leased to another node and not recorded as sold to the stock of its
+     * products, and deletes the node's leases and sales. Meant for a node that stopped without
+     * returning them and will not be started again under the same id; a node still running
+     * would go on selling the units.
+     *
+     * @return the number of units returned
+     * @throws BadRequestException if the node is this one
+     */
+    public int returnLeases(String nodeId) {
+        if (enabled && nodeId.equals(this.nodeId)) {
+            throw new BadRequestException("Node " + nodeId + " is this node, whose leases are in use");
+        }
+        return release(nodeId);
+    }
+
+    /**
+     * Returns every unsold unit to the database on shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (enabled) {
+            flush(true);
+        }
+    }
+
+    private int release(String leaseNodeId) {
+        Integer returned = transactionTemplate.execute(status -> {
+            // Locked in product id order, like claims; a concurrent release waits, then finds none
+            List<StockLease> leases = stockLeaseRepository.findByNodeIdOrderByProductId(leaseNodeId);
+            Map<Long, Long> sold = new HashMap<>();
+            for (Object[] row : stockSaleRepository.sumQuantityByProduct(leaseNodeId)) {
+                sold.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            int units = 0;
+            for (StockLease lease : leases) {
+                int unsold = (int) (lease.getQuantity() - sold.getOrDefault(lease.getProductId(), 0L));
+                if (unsold > 0) {
+                    productRepository.incrementStock(lease.getProductId(), unsold);
+                    units += unsold;
+                }
+            }
+            stockSaleRepository.deleteByNodeId(leaseNodeId);
+            stockLeaseRepository.deleteByNodeId(leaseNodeId);
+            return units;
+        });
+        if (returned > 0) {
+            log.warn("Returned {} units of stock leased to node {}, which stopped without returning them",
+                    returned, leaseNodeId);
+        }
+        return returned;
+    }
+
+    /**
+     * Records the reserved units as sold in the current transaction, and arranges for the
+     * reservations to be settled with the ledger when it completes.
+     */
+    private void recordSales(List<Reservation> reservations) {
+        List<Object[]> rows = new ArrayList<>(reservations.size());
+        for (Reservation reservation : reservations) {
+            rows.add(new Object[]{nodeId, reservation.productId(), reservation.quantity()});
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SALE_SQL, rows);
+        } catch (RuntimeException e) {
+            reservations.forEach(Reservation::cancel);
+            throw e;
+        }
+        reservations.forEach(Reservation::settle);
+        TransactionCallbacks.afterCommit(() -> salesPending.set(true));
+    }
+
+    private Reservation acquire(Long productId, int quantity) {
+        Slot slot = slot(productId);
+        slot.lastUsed = System.currentTimeMillis();
+        if (slot.take(quantity)) {
+            return new Reservation(productId, slot, quantity, 0, 0);
+        }
+        slot.refillLock.lock();
+        try {
+            if (slot.take(quantity)) {
+                return new Reservation(productId, slot, quantity, 0, 0);
+            }
+            int block = Math.max(blockSize, quantity);
+            if (claim(productId, block)) {
+                return new Reservation(productId, slot, 0, quantity, block - quantity);
+            }
+            // Less than a block is left in the database: sell what is here and claim the rest
+            int local = slot.takeUpTo(quantity);
+            boolean claimed = false;
+            try {
+                claimed = local == quantity || claim(productId, quantity - local);
+            } finally {
+                if (!claimed) {
+                    slot.available.addAndGet(local);
+                }
+            }
+            return claimed ? new Reservation(productId, slot, local, quantity - local, 0) : null;
+        } finally {
+            slot.refillLock.unlock();
+        }
+    }
+
+    /**
+     * Moves units from the product to this node's lease in the current transaction.
+     */
+    private boolean claim(Long productId, int quantity) {
+        try {
+            if (productRepository.claimStock(productId, quantity) == 0) {
+                return false;
+            }
+        } catch (QueryTimeoutException | PessimisticLockingFailureException e) {
+            log.warn("Timed out claiming stock for product id: {}", productId);
+            throw new ServiceUnavailableException("Stock is busy, please retry shortly");
+        }
+        if (stockLeaseRepository.adjustQuantity(nodeId, productId, quantity) == 0) {
+            stockLeaseRepository.save(StockLease.builder()
+                    .nodeId(nodeId)
+                    .productId(productId)
+                    .quantity(quantity)
+                    .build());
+        }
+        return true;
+    }
+
+    private void flush(boolean releaseAll) {
+        long now = System.currentTimeMillis();
+        List<Delta> deltas = new ArrayList<>();
+        slots.forEach((productId, slot) -> {
+            boolean release = releaseAll || now - slot.lastUsed > idleReturnMillis;
+            Delta delta = new Delta(productId, slot,
+                    slot.restocked.getAndSet(0),
+                    release ? slot.available.getAndSet(0) : 0);
+            if (!delta.isEmpty()) {
+                deltas.add(delta);
+            }
+        });
+        boolean foldSales = salesPending.getAndSet(false);
+        if (deltas.isEmpty() && !foldSales) {
+            return;
+        }
+
+        try {
+            int folded = transactionTemplate.execute(status -> {
+                // Per product: units returned to stock, and units leaving the lease
+                Map<Long, int[]> changes = new TreeMap<>();
+                for (Delta delta : deltas) {
+                    int[] change = changes.computeIfAbsent(delta.productId, id -> new int[2]);
+                    change[0] += delta.restocked + delta.released;
+                    change[1] += delta.released;
+                }
+                List<Long> saleIds = new ArrayList<>();
+                if (foldSales) {
+                    // Sales still in flight are not visible yet and are folded by a later flush
+                    List<StockSale> sales;
+                    long afterId = 0;
+                    do {
+                        sales = stockSaleRepository.findByNodeIdAfter(nodeId, afterId,
+                                PageRequest.of(0, FLUSH_BATCH_SIZE));
+                        for (StockSale sale : sales) {
+                            changes.computeIfAbsent(sale.getProductId(), id -> new int[2])[1] += sale.getQuantity();
+                            saleIds.add(sale.getId());
+                            afterId = sale.getId();
+                        }
+                    } while (sales.size() == FLUSH_BATCH_SIZE);
+                }
+
+                // Rows are locked in product id order, the order in which sales claim them
+                changes.forEach((productId, change) -> {
+                    if (change[0] > 0) {
+                        productRepository.incrementStock(productId, change[0]);
+                    }
+                    if (change[1] != 0) {
+                        stockLeaseRepository.adjustQuantity(nodeId, productId, -change[1]);
+                        // An empty lease would keep the product from being deleted
+                        stockLeaseRepository.deleteEmpty(nodeId, productId);
+                    }
+                });
+                for (int from = 0; from < saleIds.size(); from += FLUSH_BATCH_SIZE) {
+                    stockSaleRepository.deleteByIdIn(saleIds.subList(from,
+                            Math.min(from + FLUSH_BATCH_SIZE, saleIds.size())));
+                }
+                return saleIds.size();
+            });
+            log.debug("Flushed stock ledger deltas for {} products and {} sales", deltas.size(), folded);
+        } catch (RuntimeException e) {
+            log.error("Failed to flush stock ledger, will retry", e);
+            deltas.forEach(Delta::restore);
+            if (foldSales) {
+                salesPending.set(true);
+            }
+        }
+    }
+
+    private Slot slot(Long productId) {
+        return slots.computeIfAbsent(productId, id -> new Slot());
+    }
+
+    /**
+     * Per-product counters. {@code available} holds leased units that are not sold yet.
+     */
+    private static final class Slot {
+
+        private final AtomicInteger available = new AtomicInteger();
+        private final AtomicInteger restocked = new AtomicInteger();
+        private final ReentrantLock refillLock = new ReentrantLock();
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        private boolean take(int quantity) {
+            int current;
+            do {
+                current = available.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!available.compareAndSet(current, current - quantity));
+            return true;
+        }
+
+        private int takeUpTo(int quantity) {
+            int current;
+            int taken;
+            do {
+                current = available.get();
+                taken = Math.min(current, quantity);
+            } while (!available.compareAndSet(current, current - taken));
+            return taken;
+        }
+    }
+
+    /**
+     * Units reserved for one line: {@code local} taken from the slot, and {@code claimed} from
+     * a block claimed in the current transaction, together with the {@code surplus} of the
+     * block. Claimed units only exist once the transaction commits.
+     */
+    private record Reservation(Long productId, Slot slot, int local, int claimed, int surplus) {
+
+        private int quantity() {
+            return local + claimed;
+        }
+
+        private void settle() {
+            TransactionCallbacks.afterRollback(() -> slot.available.addAndGet(local));
+            if (surplus > 0) {
+                TransactionCallbacks.afterCommit(() -> slot.available.addAndGet(surplus));
+            }
+        }
+
+        private void cancel() {
+            slot.available.addAndGet(local);
+            if (claimed > 0) {
+                // The claim stands if the transaction commits anyway
+                TransactionCallbacks.afterCommit(() -> slot.available.addAndGet(claimed + surplus));
+            }
+        }
+    }
+
+    private record Delta(Long productId, Slot slot, int restocked, int released) {
+
+        private boolean isEmpty() {
+            return restocked == 0 && released == 0;
+        }
+
+        private void restore() {
+            slot.restocked.addAndGet(restocked);
+            slot.available.addAndGet(released);
+        }
+    }
+}
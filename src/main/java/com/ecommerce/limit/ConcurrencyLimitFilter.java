@@ -0,0 +1,87 @@
+package com.ecommerce.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Limits the requests in flight per {@link EndpointGroup} with an adaptive
+ * {@link GradientLimit}, so that a surge queues in the client rather than in front of the
+ * connection pool. Requests over the limit are answered right away with {@code 503} and
+ * {@code Retry-After}. Runs before the security filters, so password checks are limited too.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Map<EndpointGroup, ConcurrencyLimiter> limiters = new EnumMap<>(EndpointGroup.class);
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public ConcurrencyLimitFilter(MeterRegistry meterRegistry,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+                                  @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${app.concurrency-limit.max-limit:200}") int maxLimit,
+                                  @Value("${app.concurrency-limit.tolerance:1.5}") double tolerance,
+                                  @Value("${app.concurrency-limit.window-ms:1000}") long windowMillis) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        if (enabled) {
+            for (EndpointGroup group : EndpointGroup.values()) {
+                GradientLimit limit = new GradientLimit(initialLimit, minLimit, maxLimit, tolerance, windowMillis);
+                limiters.put(group, new ConcurrencyLimiter(group, limit, meterRegistry));
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        EndpointGroup group = enabled ? EndpointGroup.of(request) : null;
+        if (group == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        ConcurrencyLimiter limiter = limiters.get(group);
+        if (!limiter.tryAcquire()) {
+            reject(request, response, group);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, EndpointGroup group)
+            throws IOException {
+        if (log.isDebugEnabled()) {
+            log.debug("Rejected {} {}: concurrency limit of {} reached", request.getMethod(), request.getRequestURI(),
+                    group.getTag());
+        }
+
+        Rejections.write(request, response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many concurrent requests, please retry shortly", 1);
+    }
+}
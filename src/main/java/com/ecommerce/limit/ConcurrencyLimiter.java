@@ -0,0 +1,54 @@
+package com.ecommerce.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admits requests of one {@link EndpointGroup} while fewer than its {@link GradientLimit}
+ * are in flight, and feeds the latency of admitted requests back into the limit. Publishes
+ * {@code app.concurrency.limit}, {@code app.concurrency.in-flight} and
+ * {@code app.concurrency.rejected}, tagged by group.
+ */
+public class ConcurrencyLimiter {
+
+    private final GradientLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    public ConcurrencyLimiter(EndpointGroup group, GradientLimit limit, MeterRegistry meterRegistry) {
+        this.limit = limit;
+        Gauge.builder("app.concurrency.limit", limit, GradientLimit::getLimit)
+                .description("Requests allowed in flight at once")
+                .tag("group", group.getTag())
+                .register(meterRegistry);
+        Gauge.builder("app.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .description("Requests in flight")
+                .tag("group", group.getTag())
+                .register(meterRegistry);
+        this.rejected = Counter.builder("app.concurrency.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .tag("group", group.getTag())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a request if the limit allows it. An admitted request must be completed with
+     * {@link #release(long)}.
+     */
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit.getLimit()) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void release(long rttNanos) {
+        int current = inFlight.getAndDecrement();
+        limit.onSample(rttNanos, current);
+    }
+}
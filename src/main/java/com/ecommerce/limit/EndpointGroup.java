@@ -0,0 +1,51 @@
+package com.ecommerce.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Groups of endpoints that get a concurrency limit each, so that a surge in one group
+ * cannot take the capacity of the others.
+ */
+public enum EndpointGroup {
+
+    /** {@code GET} and {@code HEAD} requests for products and categories. */
+    CATALOG_READ("catalog-read"),
+    /** Catalog changes, cart and orders. */
+    WRITE("write"),
+    /** Login and credential endpoints, which spend most of their time hashing passwords. */
+    AUTH("auth");
+
+    private final String tag;
+
+    EndpointGroup(String tag) {
+        this.tag = tag;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    /**
+     * Returns the group of the request, or {@code null} for requests that are not limited:
+     * everything outside the versioned API, and bulk import and export, which take as long as
+     * their payload rather than as long as the queue. Classifies the decoded path, as it is
+     * mapped to a handler.
+     */
+    public static EndpointGroup of(HttpServletRequest request) {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        if (!path.startsWith("/v1/") || path.startsWith("/v1/products/import")
+                || path.startsWith("/v1/products/export")) {
+            return null;
+        }
+        if (path.startsWith("/v1/auth/") || path.equals("/v1/credentials")) {
+            return AUTH;
+        }
+        String method = request.getMethod();
+        boolean read = "GET".equals(method) || "HEAD".equals(method);
+        if (read && (path.startsWith("/v1/products") || path.startsWith("/v1/categories"))) {
+            return CATALOG_READ;
+        }
+        return WRITE;
+    }
+}
@@ -0,0 +1,108 @@
+package com.ecommerce.limit;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A concurrency limit that adapts to latency, after the gradient algorithm of Netflix's
+ * concurrency-limits.
+ * <p>
+ * Latency samples are averaged over a window. At the end of each window the average is
+ * compared with a baseline that stands for latency without queueing: while the two are
+ * within the tolerance the limit grows by about the square root of itself, and as latency
+ * rises beyond it the limit shrinks in proportion, by at most half per window. Windows in
+ * which fewer than half of the allowed requests were in flight leave the limit unchanged,
+ * as latency then says nothing about whether more would fit.
+ * <p>
+ * The baseline is the lowest average latency of the last {@value #BASELINE_WINDOWS} windows,
+ * so that it follows the work getting slower or faster, while a single unusually fast window
+ * cannot pin it: it is forgotten once it leaves the history, and the limit recovers instead
+ * of being cut towards the minimum for good. As overload shrinks the limit, queueing drains
+ * and the faster windows that follow keep the baseline down.
+ */
+public class GradientLimit {
+
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final int BASELINE_WINDOWS = 30;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowPeakInFlight = new AtomicInteger();
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private volatile long windowStart = System.nanoTime();
+    private volatile int limit;
+    // Guarded by updateLock: average latency of the last windows, as a ring
+    private final double[] recentRttNanos = new double[BASELINE_WINDOWS];
+    private int recentWindows;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, long windowMillis) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = windowMillis * 1_000_000;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Records the latency of a request that ran with the given number of requests in flight.
+     */
+    public void onSample(long rttNanos, int inFlight) {
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        windowPeakInFlight.accumulateAndGet(inFlight, Math::max);
+
+        long now = System.nanoTime();
+        if (now - windowStart < windowNanos || windowSamples.sum() < MIN_WINDOW_SAMPLES || !updateLock.tryLock()) {
+            return;
+        }
+        try {
+            if (now - windowStart < windowNanos) {
+                return;
+            }
+            windowStart = now;
+            long samples = windowSamples.sumThenReset();
+            long totalRttNanos = windowRttNanos.sumThenReset();
+            int peakInFlight = windowPeakInFlight.getAndSet(0);
+            if (samples > 0) {
+                update((double) totalRttNanos / samples, peakInFlight);
+            }
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private void update(double shortRttNanos, int peakInFlight) {
+        int current = limit;
+        boolean appLimited = peakInFlight < current / 2;
+
+        recentRttNanos[recentWindows++ % BASELINE_WINDOWS] = shortRttNanos;
+        if (recentWindows == 2 * BASELINE_WINDOWS) {
+            recentWindows = BASELINE_WINDOWS;
+        }
+        double baselineRttNanos = shortRttNanos;
+        for (int i = Math.min(recentWindows, BASELINE_WINDOWS) - 1; i >= 0; i--) {
+            baselineRttNanos = Math.min(baselineRttNanos, recentRttNanos[i]);
+        }
+
+        if (appLimited) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baselineRttNanos / shortRttNanos));
+        double target = current * gradient + Math.sqrt(current);
+        double smoothed = current * (1 - SMOOTHING) + target * SMOOTHING;
+        // Rounded away from the current limit, so that small limits can still move
+        double rounded = smoothed > current ? Math.ceil(smoothed) : Math.floor(smoothed);
+        limit = (int) Math.max(minLimit, Math.min(maxLimit, rounded));
+    }
+}
@@ -0,0 +1,67 @@
+package com.ecommerce.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.util.UrlPathHelper;
+
+/**
+ * Classes of endpoints with a rate limit of their own per client. The defaults can be
+ * overridden with {@code app.rate-limit.<tag>.burst} and {@code app.rate-limit.<tag>.per-second}.
+ */
+public enum RateLimitClass {
+
+    /** Login and credentials, which check a password with BCrypt. */
+    AUTH("auth", 10, 1),
+    /** Keyword and faceted search. */
+    SEARCH("search", 20, 10),
+    /** Other {@code GET} and {@code HEAD} requests. */
+    READ("read", 100, 50),
+    /** Everything else in the API. */
+    WRITE("write", 20, 10),
+    /** Health, metrics and other actuator endpoints. */
+    ACTUATOR("actuator", 20, 5);
+
+    private final String tag;
+    private final int defaultBurst;
+    private final double defaultPerSecond;
+
+    RateLimitClass(String tag, int defaultBurst, double defaultPerSecond) {
+        this.tag = tag;
+        this.defaultBurst = defaultBurst;
+        this.defaultPerSecond = defaultPerSecond;
+    }
+
+    public String getTag() {
+        return tag;
+    }
+
+    public int getDefaultBurst() {
+        return defaultBurst;
+    }
+
+    public double getDefaultPerSecond() {
+        return defaultPerSecond;
+    }
+
+    /**
+     * Returns the class of the request, or {@code null} for requests that are not limited,
+     * such as the API docs. Classifies the decoded path, as it is mapped to a handler, so
+     * that percent-encoding cannot move a request to another class.
+     */
+    public static RateLimitClass of(HttpServletRequest request) {
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        if (path.startsWith("/actuator/")) {
+            return ACTUATOR;
+        }
+        if (!path.startsWith("/v1/")) {
+            return null;
+        }
+        if (path.startsWith("/v1/auth/") || path.startsWith("/v1/credentials")) {
+            return AUTH;
+        }
+        if (path.startsWith("/v1/products/search") || path.startsWith("/v1/products/facets")) {
+            return SEARCH;
+        }
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) ? READ : WRITE;
+    }
+}
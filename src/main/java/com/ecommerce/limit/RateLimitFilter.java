@@ -0,0 +1,66 @@
+package com.ecommerce.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the {@link RateLimiter} in the security filter chain. Runs after bearer tokens are
+ * verified and before Basic authentication, so requests with a token are limited by
+ * username, and all others, including logins, by client address before any password is
+ * hashed. Requests over the limit get {@code 429} with {@code Retry-After}.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        RateLimitClass limitClass = RateLimitClass.of(request);
+        if (limitClass != null) {
+            long waitNanos = rateLimiter.tryAcquire(limitClass, principal(), request.getRemoteAddr());
+            if (waitNanos > 0) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Rate limited {} {} from {}", request.getMethod(), request.getRequestURI(),
+                            request.getRemoteAddr());
+                }
+                long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+                Rejections.write(request, response, objectMapper, HttpStatus.TOO_MANY_REQUESTS,
+                        "Too many requests, please retry later", retryAfterSeconds);
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per client and {@link RateLimitClass}, without locks.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the generic cell rate algorithm). Taking a token moves that time one refill interval
+ * further, and is refused when it would lie more than a full burst ahead of now; refill is
+ * implied by the passing of time, so nothing runs between requests. A bucket whose time
+ * has passed is full and indistinguishable from a new one, so idle clients are evicted
+ * without losing anything.
+ * <p>
+ * Principals and client addresses are kept in separate maps, so that a username can never
+ * share a bucket with an address.
+ */
+@Component
+public class RateLimiter {
+
+    private static final long EVICTION_INTERVAL_MILLIS = 60_000;
+
+    private final boolean enabled;
+    private final Map<RateLimitClass, Buckets> buckets = new EnumMap<>(RateLimitClass.class);
+
+    public RateLimiter(Environment environment,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.rate-limit.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        for (RateLimitClass limitClass : RateLimitClass.values()) {
+            String prefix = "app.rate-limit." + limitClass.getTag();
+            int burst = environment.getProperty(prefix + ".burst", Integer.class, limitClass.getDefaultBurst());
+            double perSecond = environment.getProperty(prefix + ".per-second", Double.class,
+                    limitClass.getDefaultPerSecond());
+            buckets.put(limitClass, new Buckets(limitClass, burst, perSecond, meterRegistry));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes a token from the client's bucket for the class.
+     *
+     * @param principal the authenticated username, or {@code null} to limit by address
+     * @param address   the client address
+     * @return 0 if the request may proceed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(RateLimitClass limitClass, String principal, String address) {
+        Buckets classBuckets = buckets.get(limitClass);
+        long waitNanos = principal != null
+                ? classBuckets.tryAcquire(classBuckets.byPrincipal, principal)
+                : classBuckets.tryAcquire(classBuckets.byAddress, address);
+        if (waitNanos > 0) {
+            classBuckets.rejected.increment();
+        }
+        return waitNanos;
+    }
+
+    @Scheduled(fixedDelay = EVICTION_INTERVAL_MILLIS)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        for (Buckets classBuckets : buckets.values()) {
+            classBuckets.byPrincipal.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+            classBuckets.byAddress.values().removeIf(fullAt -> fullAt.get() - now <= 0);
+        }
+    }
+
+    private static final class Buckets {
+
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final ConcurrentMap<String, AtomicLong> byPrincipal = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, AtomicLong> byAddress = new ConcurrentHashMap<>();
+        private final Counter rejected;
+
+        private Buckets(RateLimitClass limitClass, int burst, double perSecond, MeterRegistry meterRegistry) {
+            this.intervalNanos = (long) (1_000_000_000L / perSecond);
+            this.burstNanos = burst * intervalNanos;
+            this.rejected = Counter.builder("app.rate-limit.rejected")
+                    .description("Requests rejected because the client exceeded its rate limit")
+                    .tag("class", limitClass.getTag())
+                    .register(meterRegistry);
+            Gauge.builder("app.rate-limit.clients", this, b -> b.byPrincipal.size() + b.byAddress.size())
+                    .description("Clients with a rate limit bucket")
+                    .tag("class", limitClass.getTag())
+                    .register(meterRegistry);
+        }
+
+        private long tryAcquire(ConcurrentMap<String, AtomicLong> clients, String client) {
+            long now = System.nanoTime();
+            AtomicLong fullAt = clients.get(client);
+            if (fullAt == null) {
+                fullAt = clients.computeIfAbsent(client, key -> new AtomicLong(now));
+            }
+            while (true) {
+                long current = fullAt.get();
+                long next = (current - now > 0 ? current : now) + intervalNanos;
+                long ahead = next - now;
+                if (ahead > burstNanos) {
+                    return ahead - burstNanos;
+                }
+                if (fullAt.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+    }
+}
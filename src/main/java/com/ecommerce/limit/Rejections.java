@@ -0,0 +1,34 @@
+package com.ecommerce.limit;
+
+import com.ecommerce.exception.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Writes the error response of a request rejected by a filter, in the format of
+ * {@link com.ecommerce.exception.GlobalExceptionHandler}.
+ */
+final class Rejections {
+
+    private Rejections() {
+    }
+
+    static void write(HttpServletRequest request, HttpServletResponse response, ObjectMapper objectMapper,
+                      HttpStatus status, String message, long retryAfterSeconds) throws IOException {
+        ErrorResponse errorResponse = new ErrorResponse(status.value(), message, status.getReasonPhrase());
+        errorResponse.setPath(request.getRequestURI());
+        errorResponse.setTimestamp(LocalDateTime.now());
+
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), errorResponse);
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.model.Category;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Maps between {@link Category} and {@link CategoryDTO}. The id is never copied from a DTO.
+ * The implementation is generated at compile time.
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface CategoryMapper {
+
+    CategoryDTO toDTO(Category category);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "products", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    Category toEntity(CategoryDTO dto);
+
+    /**
+     * Copies the non-null fields of the DTO onto an existing category.
+     */
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "products", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    void updateEntity(CategoryDTO dto, @MappingTarget Category category);
+}
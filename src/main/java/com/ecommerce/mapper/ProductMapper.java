@@ -0,0 +1,45 @@
+package com.ecommerce.mapper;
+
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.model.Product;
+import org.mapstruct.BeanMapping;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.mapstruct.NullValuePropertyMappingStrategy;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Maps between {@link Product} and {@link ProductDTO}. The category association and the id
+ * are never copied from a DTO; the service resolves the category itself. The implementation
+ * is generated at compile time, and a target property left unmapped fails the build.
+ */
+@Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.ERROR)
+public interface ProductMapper {
+
+    @Mapping(target = "categoryId", source = "category.id")
+    @Mapping(target = "categoryName", source = "category.name")
+    ProductDTO toDTO(Product product);
+
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "category", ignore = true)
+    @Mapping(target = "stockQuantity", defaultValue = "0")
+    @Mapping(target = "isActive", defaultValue = "true")
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "catalogUpdatedAt", ignore = true)
+    Product toEntity(ProductDTO dto);
+
+    /**
+     * Copies the non-null fields of the DTO onto an existing product. Stock is changed only
+     * through the stock statements, so it is not copied either.
+     */
+    @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "category", ignore = true)
+    @Mapping(target = "stockQuantity", ignore = true)
+    @Mapping(target = "createdAt", ignore = true)
+    @Mapping(target = "updatedAt", ignore = true)
+    @Mapping(target = "catalogUpdatedAt", ignore = true)
+    void updateEntity(ProductDTO dto, @MappingTarget Product product);
+}
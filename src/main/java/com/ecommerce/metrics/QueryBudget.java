@@ -0,0 +1,25 @@
+package com.ecommerce.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Declares the most SQL statements a controller endpoint may execute, counted from the
+ * moment the handler is invoked, so authentication lookups are not included. A JDBC batch
+ * counts as one statement. Budgets are checked by {@link QueryBudgetInterceptor} according to
+ * {@code app.query-budget.mode}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface QueryBudget {
+
+    /**
+     * Maximum number of statements, with empty catalog and user caches. Cart endpoints assume
+     * the products in the cart are cached, since carts resolve each line through the cache.
+     */
+    int value();
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.metrics;
+
+/**
+ * Thrown when a request tries to execute more SQL statements than its {@link QueryBudget}
+ * allows and budgets are enforced.
+ */
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(int budget) {
+        super("Request exceeded its query budget of " + budget + " statements");
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecommerce.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Applies the {@link QueryBudget} of the handler to the request's {@link QueryStats}.
+ * <ul>
+ *   <li>{@code off}: budgets are ignored.</li>
+ *   <li>{@code log}: requests over budget are logged and counted in
+ *       {@code app.query-budget.exceeded}.</li>
+ *   <li>{@code fail}: the first statement over budget is rejected, so the request fails with
+ *       500. Meant for test runs, where a new N+1 query then fails the build.</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class QueryBudgetInterceptor implements HandlerInterceptor {
+
+    public enum Mode {
+        OFF, LOG, FAIL
+    }
+
+    private final Mode mode;
+    private final MeterRegistry meterRegistry;
+
+    public QueryBudgetInterceptor(@Value("${app.query-budget.mode:log}") Mode mode, MeterRegistry meterRegistry) {
+        this.mode = mode;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        QueryStats stats = QueryStats.current();
+        if (mode != Mode.OFF && stats != null && handler instanceof HandlerMethod handlerMethod) {
+            QueryBudget budget = findBudget(handlerMethod);
+            if (budget != null) {
+                stats.limit(budget.value(), mode == Mode.FAIL);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        QueryStats stats = QueryStats.current();
+        if (stats == null || !stats.isOverBudget()) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : request.getRequestURI();
+        meterRegistry.counter("app.query-budget.exceeded", "method", request.getMethod(), "uri", uri).increment();
+        if (mode == Mode.FAIL) {
+            log.error("{} {} was stopped at its query budget of {} statements", request.getMethod(), uri,
+                    stats.getBudget());
+        } else {
+            log.warn("{} {} executed {} SQL statements, over its query budget of {}", request.getMethod(), uri,
+                    stats.getBudgetedStatements(), stats.getBudget());
+        }
+    }
+
+    private static QueryBudget findBudget(HandlerMethod handlerMethod) {
+        QueryBudget budget = handlerMethod.getMethodAnnotation(QueryBudget.class);
+        return budget != null
+                ? budget
+                : AnnotatedElementUtils.findMergedAnnotation(handlerMethod.getBeanType(), QueryBudget.class);
+    }
+}
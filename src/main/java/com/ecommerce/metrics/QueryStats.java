@@ -0,0 +1,90 @@
+package com.ecommerce.metrics;
+
+/**
+ * SQL statements executed by the current request and the time the database took to run them.
+ * Collected per thread between {@link #begin()} and {@link #end()}; statements executed
+ * outside a request, such as scheduled flushes, are not attributed to any request.
+ */
+public final class QueryStats {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long nanos;
+    private int budget = -1;
+    private int budgetStart;
+    private boolean enforceBudget;
+    private boolean budgetRejected;
+
+    private QueryStats() {
+    }
+
+    /**
+     * Returns the statistics of the request running on this thread, or {@code null} outside
+     * of a request.
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Limits the statements that may still be executed by this request. When enforced, the
+     * statement that would exceed the budget fails with {@link QueryBudgetExceededException}
+     * instead of running.
+     */
+    void limit(int budget, boolean enforce) {
+        this.budget = budget;
+        this.budgetStart = statements;
+        this.enforceBudget = enforce;
+    }
+
+    static void checkBudget() {
+        QueryStats stats = CURRENT.get();
+        if (stats != null && stats.enforceBudget && stats.getBudgetedStatements() >= stats.budget) {
+            // Remembered in case the caller swallows the exception
+            stats.budgetRejected = true;
+            throw new QueryBudgetExceededException(stats.budget);
+        }
+    }
+
+    static void record(long elapsedNanos) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.statements++;
+            stats.nanos += elapsedNanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the statements executed since a budget was set, or all statements if none was.
+     */
+    public int getBudgetedStatements() {
+        return statements - budgetStart;
+    }
+
+    public boolean isOverBudget() {
+        return budgetRejected || budget >= 0 && getBudgetedStatements() > budget;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ecommerce.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.autoproxy.AbstractBeanFactoryAwareAdvisingPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call to beans implementing one of the given service interfaces and records it
+ * in the {@code app.service.invocations} timer, tagged by service, method and exception.
+ * The timing advice runs outside any transaction advice, so it includes commit time.
+ */
+public final class ServiceTimingPostProcessor extends AbstractBeanFactoryAwareAdvisingPostProcessor {
+
+    public static final String METRIC_NAME = "app.service.invocations";
+
+    public ServiceTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry, List<Class<?>> services) {
+        StaticMethodMatcherPointcut pointcut = new StaticMethodMatcherPointcut() {
+            @Override
+            public boolean matches(Method method, Class<?> targetClass) {
+                return method.getDeclaringClass() != Object.class;
+            }
+        };
+        pointcut.setClassFilter(type -> serviceOf(services, type) != null);
+        this.advisor = new DefaultPointcutAdvisor(pointcut, new TimingInterceptor(meterRegistry, services));
+        setBeforeExistingAdvisors(true);
+        setProxyTargetClass(true);
+    }
+
+    private static Class<?> serviceOf(List<Class<?>> services, Class<?> type) {
+        for (Class<?> service : services) {
+            if (service.isAssignableFrom(type)) {
+                return service;
+            }
+        }
+        return null;
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+        private final List<Class<?>> services;
+        private final ConcurrentMap<Method, Timer> successTimers = new ConcurrentHashMap<>();
+
+        private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry, List<Class<?>> services) {
+            this.meterRegistry = meterRegistry;
+            this.services = services;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            long start = System.nanoTime();
+            Throwable failure = null;
+            try {
+                return invocation.proceed();
+            } catch (Throwable e) {
+                failure = e;
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                Timer timer = failure == null
+                        ? successTimers.computeIfAbsent(invocation.getMethod(), method -> timer(invocation, "none"))
+                        : timer(invocation, failure.getClass().getSimpleName());
+                timer.record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private Timer timer(MethodInvocation invocation, String exception) {
+            Class<?> service = serviceOf(services, invocation.getThis().getClass());
+            return Timer.builder(METRIC_NAME)
+                    .description("Time taken by service method calls")
+                    .tag("service", service.getSimpleName())
+                    .tag("method", invocation.getMethod().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry.getObject());
+        }
+    }
+}
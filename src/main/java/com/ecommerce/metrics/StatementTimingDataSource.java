@@ -0,0 +1,89 @@
+package com.ecommerce.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counts and times every statement executed through the wrapped data source and adds them
+ * to the {@link QueryStats} of the current request. Covers JPA and {@code JdbcTemplate}
+ * alike; a JDBC batch counts as one statement. The time measured is the time until the
+ * driver returns, which does not include reading the rows of a result set.
+ * <p>
+ * When the request enforces a {@link QueryBudget}, a statement over the budget is rejected
+ * before it reaches the database.
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    public StatementTimingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private record ConnectionHandler(Connection target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementTimingDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> wrap(Statement.class, result);
+                case "prepareStatement" -> wrap(PreparedStatement.class, result);
+                case "prepareCall" -> wrap(CallableStatement.class, result);
+                default -> result;
+            };
+        }
+
+        private static Object wrap(Class<?> type, Object statement) {
+            return Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler(statement));
+        }
+    }
+
+    private record StatementHandler(Object target) implements InvocationHandler {
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return StatementTimingDataSource.invoke(target, method, args);
+            }
+            QueryStats.checkBudget();
+            long start = System.nanoTime();
+            try {
+                return StatementTimingDataSource.invoke(target, method, args);
+            } finally {
+                QueryStats.record(System.nanoTime() - start);
+            }
+        }
+    }
+}
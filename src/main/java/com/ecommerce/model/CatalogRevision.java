@@ -0,0 +1,32 @@
+package com.ecommerce.model;
+
+import lombok.*;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Revision of one catalog table, {@code products} or {@code categories}, bumped after every
+ * catalog write made through the services commits. Listing validators are derived from it,
+ * so every node reads the same ones without scanning the tables.
+ */
+@Entity
+@Table(name = "catalog_revisions")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CatalogRevision {
+
+    public static final String PRODUCTS = "products";
+    public static final String CATEGORIES = "categories";
+
+    @Id
+    @Column(length = 20)
+    private String name;
+
+    @Column(nullable = false)
+    private Long revision;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
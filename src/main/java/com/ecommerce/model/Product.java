@@ -33,8 +33,10 @@ public class Product {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal price;
 
+    // Changed only by the stock statements of ProductRepository, so that saving a product
+    // loaded before a sale cannot write back the stock it was loaded with
     @Min(value = 0, message = "Stock quantity cannot be negative")
-    @Column(nullable = false)
+    @Column(nullable = false, updatable = false)
     private Integer stockQuantity;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -48,17 +50,26 @@ public class Product {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    /**
+     * When a field other than stock last changed. Stock updates leave it alone, so the
+     * in-memory indexes can poll for catalog changes without re-reading every sale.
+     */
+    @Column(name = "catalog_updated_at")
+    private LocalDateTime catalogUpdatedAt;
+
     @Column(name = "is_active")
     private Boolean isActive = true;
 
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        updatedAt = createdAt;
+        catalogUpdatedAt = createdAt;
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        catalogUpdatedAt = updatedAt;
     }
 }
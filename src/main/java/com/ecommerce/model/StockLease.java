@@ -0,0 +1,41 @@
+package com.ecommerce.model;
+
+import lombok.*;
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Units of stock moved out of {@code products.stock_quantity} and held in the in-memory
+ * inventory ledger of one application node.
+ */
+@Entity
+@Table(name = "stock_leases",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"node_id", "product_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockLease {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "node_id", nullable = false, length = 100)
+    private String nodeId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
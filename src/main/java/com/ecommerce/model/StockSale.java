@@ -0,0 +1,30 @@
+package com.ecommerce.model;
+
+import lombok.*;
+import jakarta.persistence.*;
+
+/**
+ * Units sold by one application node from its {@link StockLease}, recorded in the
+ * transaction of the sale and folded into the lease by the next flush of the inventory ledger.
+ */
+@Entity
+@Table(name = "stock_sales")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockSale {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "node_id", nullable = false, length = 100)
+    private String nodeId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+}
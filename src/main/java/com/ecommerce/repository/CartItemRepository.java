@@ -1,7 +1,11 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.CartLineDTO;
 import com.ecommerce.model.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -15,4 +19,18 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     Optional<CartItem> findByUserIdAndProductId(Long userId, Long productId);
 
     void deleteByUserId(Long userId);
+
+    /**
+     * Returns the cart of a user with current product prices, in one query.
+     */
+    @Query("SELECT new com.ecommerce.dto.CartLineDTO(u.id, p.id, p.name, ci.quantity, p.price, p.isActive) " +
+           "FROM CartItem ci JOIN ci.user u JOIN ci.product p WHERE u.username = :username ORDER BY p.id")
+    List<CartLineDTO> findCartLines(@Param("username") String username);
+
+    /**
+     * Deletes the whole cart of a user with a single statement.
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.user.id = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,26 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.CatalogRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+
+@Repository
+public interface CatalogRevisionRepository extends JpaRepository<CatalogRevision, String> {
+
+    /**
+     * Bumps the revisions of the given tables in a transaction of its own, so that the rows
+     * are locked only for this statement.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE CatalogRevision r SET r.revision = r.revision + 1, r.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE r.name IN :names")
+    int bump(@Param("names") Collection<String> names);
+}
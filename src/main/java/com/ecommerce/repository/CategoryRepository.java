@@ -2,8 +2,13 @@ package com.ecommerce.repository;
 
 import com.ecommerce.model.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -12,4 +17,13 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     Optional<Category> findByNameIgnoreCase(String name);
 
     boolean existsByNameIgnoreCase(String name);
+
+    /**
+     * Returns {@code [id, updatedAt]} of the categories updated after the given time.
+     */
+    @Query("SELECT c.id, c.updatedAt FROM Category c WHERE c.updatedAt > :since")
+    List<Object[]> findUpdatesAfter(@Param("since") LocalDateTime since);
+
+    @Query("SELECT c.id FROM Category c WHERE c.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
@@ -1,16 +1,30 @@
 package com.ecommerce.repository;
 
+import com.ecommerce.dto.ProductDTO;
 import com.ecommerce.model.Product;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
+
+    /**
+     * Longest a stock claim of the inventory ledger runs, in milliseconds.
+     */
+    String CLAIM_TIMEOUT_MS = "2000";
 
     Page<Product> findByIsActiveTrue(Pageable pageable);
 
@@ -25,4 +39,138 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByCategoryIdAndIsActiveTrue(Long categoryId);
 
     long countByCategoryId(Long categoryId);
+
+    boolean existsByCategoryId(Long categoryId);
+
+    /*
+     * DTO projections: each selects exactly the ProductDTO columns, joining the category in the
+     * same statement instead of initialising the lazy association once per row.
+     */
+    String PRODUCT_DTO_SELECT = "SELECT new com.ecommerce.dto.ProductDTO(p.id, p.name, p.description, p.price, " +
+                                "p.stockQuantity, c.id, c.name, p.isActive) FROM Product p JOIN p.category c ";
+
+    @Query(PRODUCT_DTO_SELECT + "WHERE p.id = :id")
+    Optional<ProductDTO> findDTOById(@Param("id") Long id);
+
+    @Query(value = PRODUCT_DTO_SELECT + "WHERE p.isActive = true",
+           countQuery = "SELECT count(p) FROM Product p WHERE p.isActive = true")
+    Page<ProductDTO> findActiveDTOs(Pageable pageable);
+
+    @Query(value = PRODUCT_DTO_SELECT +
+                   "WHERE p.isActive = true AND lower(p.name) LIKE lower(concat('%', :name, '%'))",
+           countQuery = "SELECT count(p) FROM Product p " +
+                        "WHERE p.isActive = true AND lower(p.name) LIKE lower(concat('%', :name, '%'))")
+    Page<ProductDTO> findActiveDTOsByNameContaining(@Param("name") String name, Pageable pageable);
+
+    @Query(value = PRODUCT_DTO_SELECT + "WHERE p.isActive = true AND p.price BETWEEN :minPrice AND :maxPrice " +
+                   "AND (:categoryId IS NULL OR c.id = :categoryId)",
+           countQuery = "SELECT count(p) FROM Product p " +
+                        "WHERE p.isActive = true AND p.price BETWEEN :minPrice AND :maxPrice " +
+                        "AND (:categoryId IS NULL OR p.category.id = :categoryId)")
+    Page<ProductDTO> findActiveDTOsByPriceBetween(@Param("categoryId") Long categoryId,
+                                                  @Param("minPrice") BigDecimal minPrice,
+                                                  @Param("maxPrice") BigDecimal maxPrice,
+                                                  Pageable pageable);
+
+    @Query(PRODUCT_DTO_SELECT + "WHERE p.id IN :ids")
+    List<ProductDTO> findDTOsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(PRODUCT_DTO_SELECT + "WHERE p.isActive = true AND c.id = :categoryId")
+    List<ProductDTO> findActiveDTOsByCategoryId(@Param("categoryId") Long categoryId);
+
+    @Query(PRODUCT_DTO_SELECT + "WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id")
+    List<ProductDTO> findActiveDTOsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Returns {@code [id, name, description, price, stockQuantity, categoryId, categoryName,
+     * isActive, catalogUpdatedAt]} of the products, active or not, whose catalog fields changed
+     * after the given time, in id order after the given id.
+     */
+    @Query("SELECT p.id, p.name, p.description, p.price, p.stockQuantity, c.id, c.name, p.isActive, " +
+           "p.catalogUpdatedAt FROM Product p JOIN p.category c " +
+           "WHERE p.catalogUpdatedAt > :since AND p.id > :afterId ORDER BY p.id")
+    List<Object[]> findCatalogChangesAfter(@Param("since") LocalDateTime since,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+
+    @Query("SELECT p.id FROM Product p WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id")
+    List<Long> findActiveIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Returns {@code [id, price, categoryId, stockQuantity]} of active products after the given
+     * id, in id order, for the in-memory price and facet indexes.
+     */
+    @Query("SELECT p.id, p.price, p.category.id, p.stockQuantity FROM Product p " +
+           "WHERE p.isActive = true AND p.id > :afterId ORDER BY p.id")
+    List<Object[]> findActiveFacetValuesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Returns {@code [id, stockQuantity]} of the products, active or not, updated after the
+     * given time, in id order after the given id.
+     */
+    @Query("SELECT p.id, p.stockQuantity FROM Product p " +
+           "WHERE p.updatedAt > :since AND p.id > :afterId ORDER BY p.id")
+    List<Object[]> findStockChangesAfter(@Param("since") LocalDateTime since,
+                                         @Param("afterId") Long afterId,
+                                         Pageable pageable);
+
+    /**
+     * Returns {@code [id, updatedAt]} of the products updated after the given time, stock
+     * changes included.
+     */
+    @Query("SELECT p.id, p.updatedAt FROM Product p WHERE p.updatedAt > :since")
+    List<Object[]> findUpdatesAfter(@Param("since") LocalDateTime since);
+
+    @Query("SELECT p.id FROM Product p WHERE p.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Returns when any product was last updated, stock changes included, or {@code null} if
+     * there are no products.
+     */
+    @Query("SELECT max(p.updatedAt) FROM Product p")
+    LocalDateTime findLastUpdatedAt();
+
+    /**
+     * Decrements stock in a single statement, only if enough units are left.
+     *
+     * @return 1 if the stock was decremented, 0 if the product is missing or has insufficient stock
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int decrementStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Decrements stock like {@link #decrementStock}, for the inventory ledger, which claims stock
+     * inside the transaction of a sale. The persistence context is flushed but not cleared, so
+     * the entities the sale has loaded stay managed. The statement gives up after
+     * {@value #CLAIM_TIMEOUT_MS} ms, most of which can only be spent waiting for the row lock.
+     *
+     * @return 1 if the stock was claimed, 0 if the product is missing or has insufficient stock
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.query.timeout", value = CLAIM_TIMEOUT_MS))
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id AND p.stockQuantity >= :quantity")
+    int claimStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Sets the stock of a product, as an administrator does, without saving the entity.
+     *
+     * @return 1 if the stock was set, 0 if the product is missing
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = :quantity, p.updatedAt = CURRENT_TIMESTAMP WHERE p.id = :id")
+    int setStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    /**
+     * Increments stock in a single statement.
+     *
+     * @return 1 if the stock was incremented, 0 if the product is missing
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity + :quantity, p.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE p.id = :id")
+    int incrementStock(@Param("id") Long id, @Param("quantity") int quantity);
 }
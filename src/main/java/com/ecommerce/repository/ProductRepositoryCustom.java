@@ -0,0 +1,37 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductCursor;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductFilter;
+import org.springframework.data.domain.Slice;
+
+import java.util.Map;
+import java.util.stream.Stream;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Returns up to {@code size} active products matching the filter that come after the
+     * cursor position, without an OFFSET or a count query.
+     */
+    Slice<ProductDTO> findActiveSlice(ProductFilter filter, ProductCursor cursor, int size);
+
+    /**
+     * Streams active products in id order, optionally of one category, from a forward-only
+     * cursor that fetches {@code fetchSize} rows per round trip. Must be consumed and closed
+     * inside a transaction.
+     */
+    Stream<ProductDTO> streamActive(Long categoryId, int fetchSize);
+
+    /**
+     * Decrements stock for a whole basket in one JDBC batch of the conditional
+     * {@link ProductRepository#decrementStock} update. Rows are updated in id order, so that
+     * concurrent baskets lock them in the same order. With a driver that reports
+     * {@link java.sql.Statement#SUCCESS_NO_INFO} for batched statements, the lines are updated
+     * one statement each instead.
+     *
+     * @return the update count per product: 0 if it is missing or has insufficient stock,
+     *         otherwise 1
+     */
+    Map<Long, Integer> decrementStockBatch(Map<Long, Integer> quantities);
+}
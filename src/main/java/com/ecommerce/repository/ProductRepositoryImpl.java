@@ -0,0 +1,199 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.dto.ProductCursor;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.model.Category;
+import com.ecommerce.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+
+    private static final String DECREMENT_STOCK_SQL =
+            "UPDATE products SET stock_quantity = stock_quantity - ?, updated_at = CURRENT_TIMESTAMP " +
+            "WHERE id = ? AND stock_quantity >= ?";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Whether the driver reports an update count per batched statement; null until a batch
+    // has shown it. Without counts, a basket is decremented one statement per line instead
+    private volatile Boolean batchCountsReported;
+
+    @Override
+    public Slice<ProductDTO> findActiveSlice(ProductFilter filter, ProductCursor cursor, int size) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductDTO> query = cb.createQuery(ProductDTO.class);
+        Root<Product> product = query.from(Product.class);
+        Join<Product, Category> category = product.join("category");
+
+        query.select(cb.construct(ProductDTO.class,
+                product.get("id"), product.get("name"), product.get("description"), product.get("price"),
+                product.get("stockQuantity"), category.get("id"), category.get("name"), product.get("isActive")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isTrue(product.get("isActive")));
+        if (filter.getKeyword() != null && !filter.getKeyword().isBlank()) {
+            predicates.add(cb.like(cb.lower(product.get("name")), containsPattern(filter.getKeyword()), '\\'));
+        }
+        if (filter.getMinPrice() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(product.get("price"), filter.getMinPrice()));
+        }
+        if (filter.getMaxPrice() != null) {
+            predicates.add(cb.lessThanOrEqualTo(product.get("price"), filter.getMaxPrice()));
+        }
+        if (filter.getCategoryId() != null) {
+            predicates.add(cb.equal(category.get("id"), filter.getCategoryId()));
+        }
+
+        Expression<Comparable<Object>> sortPath = product.get(cursor.sortKey().getAttribute());
+        Expression<Long> idPath = product.get("id");
+        boolean ascending = cursor.direction() == Sort.Direction.ASC;
+        if (cursor.hasPosition()) {
+            predicates.add(after(cb, sortPath, idPath, cursor, ascending));
+        }
+
+        Order[] order = ascending
+                ? new Order[]{cb.asc(sortPath), cb.asc(idPath)}
+                : new Order[]{cb.desc(sortPath), cb.desc(idPath)};
+        query.where(predicates.toArray(new Predicate[0])).orderBy(order);
+
+        List<ProductDTO> rows = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList();
+
+        boolean hasNext = rows.size() > size;
+        List<ProductDTO> content = hasNext ? new ArrayList<>(rows.subList(0, size)) : rows;
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    public Stream<ProductDTO> streamActive(Long categoryId, int fetchSize) {
+        String jpql = ProductRepository.PRODUCT_DTO_SELECT + "WHERE p.isActive = true"
+                + (categoryId != null ? " AND c.id = :categoryId" : "")
+                + " ORDER BY p.id";
+        TypedQuery<ProductDTO> query = entityManager.createQuery(jpql, ProductDTO.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true);
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        return query.getResultStream();
+    }
+
+    @Override
+    public Map<Long, Integer> decrementStockBatch(Map<Long, Integer> quantities) {
+        Map<Long, Integer> ordered = new TreeMap<>(quantities);
+        // Same contract as @Modifying(flushAutomatically = true, clearAutomatically = true)
+        entityManager.flush();
+        Map<Long, Integer> updated = entityManager.unwrap(Session.class).doReturningWork(connection ->
+                Boolean.FALSE.equals(batchCountsReported)
+                        ? decrementEach(connection, ordered)
+                        : decrementInBatch(connection, ordered));
+        entityManager.clear();
+        return updated;
+    }
+
+    private Map<Long, Integer> decrementInBatch(Connection connection, Map<Long, Integer> ordered)
+            throws SQLException {
+        // The first batch runs inside a savepoint, so that it can be undone if the driver turns
+        // out not to report which lines it decremented
+        Savepoint probe = batchCountsReported == null ? connection.setSavepoint() : null;
+        int[] counts;
+        try (PreparedStatement statement = connection.prepareStatement(DECREMENT_STOCK_SQL)) {
+            for (Map.Entry<Long, Integer> line : ordered.entrySet()) {
+                bind(statement, line);
+                statement.addBatch();
+            }
+            counts = statement.executeBatch();
+        }
+        if (Arrays.stream(counts).anyMatch(count -> count == Statement.SUCCESS_NO_INFO)) {
+            if (probe == null) {
+                throw new IllegalStateException("The JDBC driver stopped reporting batch update counts");
+            }
+            connection.rollback(probe);
+            batchCountsReported = false;
+            return decrementEach(connection, ordered);
+        }
+        if (probe != null) {
+            connection.releaseSavepoint(probe);
+            batchCountsReported = true;
+        }
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        int i = 0;
+        for (Long id : ordered.keySet()) {
+            result.put(id, counts[i++]);
+        }
+        return result;
+    }
+
+    private static Map<Long, Integer> decrementEach(Connection connection, Map<Long, Integer> ordered)
+            throws SQLException {
+        Map<Long, Integer> result = new LinkedHashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(DECREMENT_STOCK_SQL)) {
+            for (Map.Entry<Long, Integer> line : ordered.entrySet()) {
+                bind(statement, line);
+                result.put(line.getKey(), statement.executeUpdate());
+            }
+        }
+        return result;
+    }
+
+    private static void bind(PreparedStatement statement, Map.Entry<Long, Integer> line) throws SQLException {
+        statement.setInt(1, line.getValue());
+        statement.setLong(2, line.getKey());
+        statement.setInt(3, line.getValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Predicate after(CriteriaBuilder cb, Expression<Comparable<Object>> sortPath, Expression<Long> idPath,
+                            ProductCursor cursor, boolean ascending) {
+        if (cursor.sortKey() == ProductCursor.SortKey.ID) {
+            return ascending ? cb.greaterThan(idPath, cursor.lastId()) : cb.lessThan(idPath, cursor.lastId());
+        }
+        Comparable<Object> value = (Comparable<Object>) cursor.lastValue();
+        Predicate beyond = ascending ? cb.greaterThan(sortPath, value) : cb.lessThan(sortPath, value);
+        Predicate tieBreak = ascending ? cb.greaterThan(idPath, cursor.lastId()) : cb.lessThan(idPath, cursor.lastId());
+        // The redundant bound lets the database seek the (sort, id) index to the position
+        // instead of scanning from the start for the OR
+        Predicate bound = ascending ? cb.greaterThanOrEqualTo(sortPath, value) : cb.lessThanOrEqualTo(sortPath, value);
+        return cb.and(bound, cb.or(beyond, cb.and(cb.equal(sortPath, value), tieBreak)));
+    }
+
+    private static String containsPattern(String keyword) {
+        String escaped = keyword.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+}
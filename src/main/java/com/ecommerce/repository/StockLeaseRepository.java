@@ -0,0 +1,35 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.StockLease;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockLeaseRepository extends JpaRepository<StockLease, Long> {
+
+    /**
+     * Returns the leases of a node, locked until the end of the transaction.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<StockLease> findByNodeIdOrderByProductId(String nodeId);
+
+    @Modifying
+    @Query("UPDATE StockLease l SET l.quantity = l.quantity + :delta, l.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE l.nodeId = :nodeId AND l.productId = :productId")
+    int adjustQuantity(@Param("nodeId") String nodeId, @Param("productId") Long productId, @Param("delta") int delta);
+
+    @Modifying
+    @Query("DELETE FROM StockLease l WHERE l.nodeId = :nodeId AND l.productId = :productId AND l.quantity = 0")
+    int deleteEmpty(@Param("nodeId") String nodeId, @Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM StockLease l WHERE l.nodeId = :nodeId")
+    int deleteByNodeId(@Param("nodeId") String nodeId);
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.repository;
+
+import com.ecommerce.model.StockSale;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockSaleRepository extends JpaRepository<StockSale, Long> {
+
+    /**
+     * Returns the committed sales of a node after the given id, in id order.
+     */
+    @Query("SELECT s FROM StockSale s WHERE s.nodeId = :nodeId AND s.id > :afterId ORDER BY s.id")
+    List<StockSale> findByNodeIdAfter(@Param("nodeId") String nodeId, @Param("afterId") long afterId,
+                                      Pageable pageable);
+
+    /**
+     * Returns the units sold by a node and not yet folded into its leases, per product id.
+     */
+    @Query("SELECT s.productId, SUM(s.quantity) FROM StockSale s WHERE s.nodeId = :nodeId GROUP BY s.productId")
+    List<Object[]> sumQuantityByProduct(@Param("nodeId") String nodeId);
+
+    @Modifying
+    @Query("DELETE FROM StockSale s WHERE s.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("DELETE FROM StockSale s WHERE s.nodeId = :nodeId")
+    int deleteByNodeId(@Param("nodeId") String nodeId);
+}
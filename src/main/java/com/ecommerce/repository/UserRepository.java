@@ -2,8 +2,12 @@ package com.ecommerce.repository;
 
 import com.ecommerce.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +20,13 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsByUsername(String username);
 
     boolean existsByEmail(String email);
+
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    /**
+     * Returns the usernames of the users updated after the given time.
+     */
+    @Query("SELECT u.username FROM User u WHERE u.updatedAt > :since")
+    List<String> findUsernamesUpdatedAfter(@Param("since") LocalDateTime since);
 }
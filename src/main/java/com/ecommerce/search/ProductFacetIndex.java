@@ -0,0 +1,627 @@
+package com.ecommerce.search;
+
+import com.ecommerce.cart.LongIntMap;
+import com.ecommerce.datasource.PrimaryReads;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductFacets;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory facet engine over active products. Returns a page of matching products together
+ * with counts per category, price range and stock state, from a single pass over the catalog.
+ * <p>
+ * Products are stored by ordinal in parallel columns: id, price in minor units, category,
+ * and price range. Liveness and stock state are bitsets. Keyword matches from
+ * {@link ProductSearchIndex} become a bitset too, so the pass visits only live matching
+ * products, 64 at a time. Facets are counted disjunctively: a product that fails only the
+ * category filter still counts towards its category, and likewise for price and stock, so
+ * clients can show what choosing another value would return.
+ * <p>
+ * The index is loaded once at startup and kept current from {@link ProductChangedEvent}s,
+ * and from {@link ProductIndexReconciler} for writes made elsewhere. Stock is not part of
+ * those: every refresh interval, the stock of the products updated since the previous refresh
+ * is read from the primary, on whichever node it changed, so stock counts may lag by one
+ * interval. Until loading finishes, {@link #isReady()} returns false.
+ */
+@Component
+@Slf4j
+public class ProductFacetIndex implements ReconciledIndex {
+
+    /**
+     * Deepest result position a query may page to; ordering keeps this many candidates.
+     */
+    public static final int MAX_RESULT_WINDOW = 10000;
+
+    private static final int LOAD_BATCH_SIZE = 10000;
+    private static final int STOCK_REFRESH_BATCH_SIZE = 1000;
+    private static final int PRICE_SCALE = 2;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MIN_REMOVED_BEFORE_COMPACTION = 1000;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final boolean enabled;
+    private final BigDecimal[] bucketBounds;
+    private final long[] bucketBoundsMinor;
+    private final Duration commitDelay;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private LocalDateTime lastStockRefresh = LocalDateTime.now();
+
+    // Columns by ordinal; ordinals maps product id -> ordinal + 1
+    private final LongIntMap ordinals = new LongIntMap(INITIAL_CAPACITY);
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] prices = new long[INITIAL_CAPACITY];
+    private int[] categories = new int[INITIAL_CAPACITY];
+    private byte[] buckets = new byte[INITIAL_CAPACITY];
+    private long[] live = new long[INITIAL_CAPACITY / 64];
+    private long[] stockBits = new long[INITIAL_CAPACITY / 64];
+    private int size;
+    private int removedCount;
+
+    // Category ids by category ordinal; categoryOrdinals maps category id -> ordinal + 1
+    private final LongIntMap categoryOrdinals = new LongIntMap();
+    private long[] categoryIds = new long[16];
+    private int categoryCount;
+
+    private volatile boolean ready;
+
+    public ProductFacetIndex(ProductRepository productRepository,
+                             ProductSearchIndex productSearchIndex,
+                             @Value("${app.search.facets.enabled:true}") boolean enabled,
+                             @Value("${app.search.facets.price-ranges:10,25,50,100,250,500,1000}") BigDecimal[] priceRanges,
+                             @Value("${app.search.reconcile.commit-delay:5s}") Duration commitDelay) {
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.enabled = enabled;
+        this.commitDelay = commitDelay;
+        if (priceRanges.length > Byte.MAX_VALUE - 1) {
+            throw new IllegalArgumentException("At most " + (Byte.MAX_VALUE - 1) + " price range bounds are supported");
+        }
+        this.bucketBounds = priceRanges.clone();
+        this.bucketBoundsMinor = new long[priceRanges.length];
+        for (int i = 0; i < priceRanges.length; i++) {
+            bucketBoundsMinor[i] = toMinorUnits(priceRanges[i]);
+            if (i > 0 && bucketBoundsMinor[i] <= bucketBoundsMinor[i - 1]) {
+                throw new IllegalArgumentException("Price range bounds must be ascending: " + Arrays.toString(priceRanges));
+            }
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads all active products in id order, skipping any that changed while loading.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        long afterId = 0;
+        int loaded = 0;
+        List<Object[]> batch;
+        do {
+            batch = productRepository.findActiveFacetValuesAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : batch) {
+                    Long id = (Long) row[0];
+                    if (!changedWhileLoading.contains(id)) {
+                        put(id, (BigDecimal) row[1], (Long) row[2], (Integer) row[3]);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                afterId = (Long) batch.get(batch.size() - 1)[0];
+            }
+            loaded += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        ready = true;
+        changedWhileLoading.clear();
+        log.info("Product facet index loaded with {} products in {} ms", loaded, System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            changedWhileLoading.add(event.productId());
+        }
+        lock.writeLock().lock();
+        try {
+            apply(event.productId(), event.product());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            event.products().forEach(product -> changedWhileLoading.add(product.getId()));
+        }
+        lock.writeLock().lock();
+        try {
+            event.products().forEach(product -> apply(product.getId(), product));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reconcile(List<ProductDTO> products) {
+        if (!enabled || products.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (ProductDTO product : products) {
+                if (!ready) {
+                    changedWhileLoading.add(product.getId());
+                }
+                apply(product.getId(), product);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long[] ids() {
+        lock.readLock().lock();
+        try {
+            long[] result = new long[ordinals.size()];
+            int i = 0;
+            for (int ordinal = 0; ordinal < size; ordinal++) {
+                if ((live[ordinal >>> 6] & 1L << ordinal) != 0) {
+                    result[i++] = ids[ordinal];
+                }
+            }
+            Arrays.sort(result);
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Long> productIds) {
+        if (!ready || productIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(id -> apply(id, null));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the stock of the products updated since the previous refresh, reaching back by
+     * the commit delay as {@link ProductIndexReconciler} does. Products sold continuously are
+     * read once per refresh, two columns each.
+     */
+    @Scheduled(fixedDelayString = "${app.search.facets.stock-refresh-ms:1000}")
+    public void refreshStock() {
+        // Until loading has finished, a refresh could be overwritten by an older loaded row;
+        // the first refresh after loading reaches back to startup
+        if (!ready) {
+            return;
+        }
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = lastStockRefresh.minus(commitDelay);
+        long afterId = 0;
+        List<Object[]> batch;
+        do {
+            long after = afterId;
+            batch = PrimaryReads.call(() ->
+                    productRepository.findStockChangesAfter(since, after, PageRequest.of(0, STOCK_REFRESH_BATCH_SIZE)));
+            lock.writeLock().lock();
+            try {
+                for (Object[] row : batch) {
+                    int ordinal = ordinals.get((Long) row[0]) - 1;
+                    if (ordinal >= 0) {
+                        setBit(stockBits, ordinal, row[1] != null && (Integer) row[1] > 0);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                afterId = (Long) batch.get(batch.size() - 1)[0];
+            }
+        } while (batch.size() == STOCK_REFRESH_BATCH_SIZE);
+        lastStockRefresh = started;
+    }
+
+    /**
+     * Finds the active products matching the filter and counts the facets of the matches.
+     *
+     * @param filter    keyword, category and price range to match; any may be {@code null}
+     * @param inStock   {@code true} for products in stock only, {@code false} for out of stock
+     *                  only, {@code null} for both
+     * @param sortBy    {@code price} or {@code id}; ties are ordered by id
+     * @param direction the sort direction
+     * @param pageable  the requested page; its sort is ignored
+     * @return the page of product ids and the facet counts, without category names
+     */
+    public Result query(ProductFilter filter, Boolean inStock, String sortBy, Sort.Direction direction,
+                        Pageable pageable) {
+        boolean byPrice = "price".equals(sortBy);
+        if (!byPrice && !"id".equals(sortBy)) {
+            throw new BadRequestException("Facet results can be sorted by price or id");
+        }
+        if (pageable.getOffset() + pageable.getPageSize() > MAX_RESULT_WINDOW) {
+            throw new BadRequestException("Results beyond the first " + MAX_RESULT_WINDOW + " cannot be paged to");
+        }
+        long low = filter.getMinPrice() == null ? Long.MIN_VALUE
+                : toMinorUnits(filter.getMinPrice().setScale(PRICE_SCALE, RoundingMode.CEILING));
+        long high = filter.getMaxPrice() == null ? Long.MAX_VALUE
+                : toMinorUnits(filter.getMaxPrice().setScale(PRICE_SCALE, RoundingMode.FLOOR));
+
+        lock.readLock().lock();
+        try {
+            long[] candidates = live;
+            if (filter.getKeyword() != null && !filter.getKeyword().isBlank()) {
+                candidates = keywordMatches(filter.getKeyword());
+            }
+            // -1: no category filter; -2: a category without active products
+            int category = filter.getCategoryId() == null ? -1 : categoryOrdinals.get(filter.getCategoryId()) - 1;
+            if (filter.getCategoryId() != null && category < 0) {
+                category = -2;
+            }
+
+            long[] categoryCounts = new long[categoryCount];
+            long[] bucketCounts = new long[bucketBoundsMinor.length + 1];
+            long[] stockCounts = new long[2];
+            TopK top = new TopK((int) (pageable.getOffset() + pageable.getPageSize()),
+                    byPrice ? prices : ids, ids, direction == Sort.Direction.DESC);
+            long total = 0;
+
+            for (int word = 0; word < candidates.length; word++) {
+                long bits = candidates[word];
+                while (bits != 0) {
+                    int ordinal = (word << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+
+                    int stock = (int) (stockBits[word] >>> ordinal & 1L);
+                    boolean categoryMatches = category == -1 || categories[ordinal] == category;
+                    boolean priceMatches = prices[ordinal] >= low && prices[ordinal] <= high;
+                    boolean stockMatches = inStock == null || inStock == (stock == 1);
+
+                    if (categoryMatches && priceMatches && stockMatches) {
+                        total++;
+                        top.offer(ordinal);
+                        categoryCounts[categories[ordinal]]++;
+                        bucketCounts[buckets[ordinal]]++;
+                        stockCounts[stock]++;
+                    } else if (!categoryMatches && priceMatches && stockMatches) {
+                        categoryCounts[categories[ordinal]]++;
+                    } else if (categoryMatches && !priceMatches && stockMatches) {
+                        bucketCounts[buckets[ordinal]]++;
+                    } else if (categoryMatches && priceMatches) {
+                        stockCounts[stock]++;
+                    }
+                }
+            }
+
+            int[] ranked = top.sorted();
+            List<Long> pageIds = new ArrayList<>(pageable.getPageSize());
+            for (int i = (int) pageable.getOffset(); i < ranked.length; i++) {
+                pageIds.add(ids[ranked[i]]);
+            }
+            return new Result(new PageImpl<>(pageIds, pageable, total),
+                    facets(categoryCounts, bucketCounts, stockCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] keywordMatches(String keyword) {
+        long[] matches = new long[live.length];
+        productSearchIndex.forEachMatch(keyword, id -> {
+            int ordinal = ordinals.get(id) - 1;
+            if (ordinal >= 0) {
+                matches[ordinal >>> 6] |= 1L << ordinal;
+            }
+        });
+        for (int word = 0; word < matches.length; word++) {
+            matches[word] &= live[word];
+        }
+        return matches;
+    }
+
+    private ProductFacets facets(long[] categoryCounts, long[] bucketCounts, long[] stockCounts) {
+        List<ProductFacets.CategoryCount> categoryFacets = new ArrayList<>();
+        for (int i = 0; i < categoryCounts.length; i++) {
+            if (categoryCounts[i] > 0) {
+                categoryFacets.add(new ProductFacets.CategoryCount(categoryIds[i], null, categoryCounts[i]));
+            }
+        }
+        categoryFacets.sort(Comparator.comparingLong(ProductFacets.CategoryCount::getCount).reversed()
+                .thenComparing(ProductFacets.CategoryCount::getCategoryId));
+
+        List<ProductFacets.PriceRangeCount> priceFacets = new ArrayList<>(bucketCounts.length);
+        for (int i = 0; i < bucketCounts.length; i++) {
+            priceFacets.add(new ProductFacets.PriceRangeCount(
+                    i == 0 ? BigDecimal.ZERO : bucketBounds[i - 1],
+                    i < bucketBounds.length ? bucketBounds[i] : null,
+                    bucketCounts[i]));
+        }
+        return ProductFacets.builder()
+                .categories(categoryFacets)
+                .priceRanges(priceFacets)
+                .inStock(stockCounts[1])
+                .outOfStock(stockCounts[0])
+                .build();
+    }
+
+    /**
+     * Indexes the product as committed, or removes it if it was deleted or deactivated.
+     * Must be called with the write lock held.
+     */
+    private void apply(Long productId, ProductDTO product) {
+        if (product == null || !Boolean.TRUE.equals(product.getIsActive())) {
+            remove(productId);
+        } else {
+            put(product.getId(), product.getPrice(), product.getCategoryId(), product.getStockQuantity());
+        }
+        if (removedCount > Math.max(MIN_REMOVED_BEFORE_COMPACTION, size / 4)) {
+            compact();
+        }
+    }
+
+    private void put(long id, BigDecimal price, long categoryId, Integer stockQuantity) {
+        int ordinal = ordinals.get(id) - 1;
+        if (ordinal < 0) {
+            ordinal = size++;
+            ensureCapacity(size);
+            ids[ordinal] = id;
+            ordinals.put(id, ordinal + 1);
+            setBit(live, ordinal, true);
+        }
+        long minor = toMinorUnits(price);
+        prices[ordinal] = minor;
+        buckets[ordinal] = bucketOf(minor);
+        categories[ordinal] = categoryOrdinal(categoryId);
+        setBit(stockBits, ordinal, stockQuantity != null && stockQuantity > 0);
+    }
+
+    private void remove(long id) {
+        int ordinal = ordinals.get(id) - 1;
+        if (ordinal < 0) {
+            return;
+        }
+        ordinals.remove(id);
+        setBit(live, ordinal, false);
+        removedCount++;
+    }
+
+    /**
+     * Packs the live products into the lowest ordinals, keeping their order.
+     */
+    private void compact() {
+        int target = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if ((live[ordinal >>> 6] & 1L << ordinal) == 0) {
+                continue;
+            }
+            boolean stocked = (stockBits[ordinal >>> 6] & 1L << ordinal) != 0;
+            ids[target] = ids[ordinal];
+            prices[target] = prices[ordinal];
+            categories[target] = categories[ordinal];
+            buckets[target] = buckets[ordinal];
+            ordinals.put(ids[target], target + 1);
+            setBit(stockBits, target, stocked);
+            target++;
+        }
+        Arrays.fill(live, 0);
+        for (int ordinal = 0; ordinal < target; ordinal++) {
+            setBit(live, ordinal, true);
+        }
+        for (int ordinal = target; ordinal < size; ordinal++) {
+            setBit(stockBits, ordinal, false);
+        }
+        log.debug("Compacted product facet index from {} to {} ordinals", size, target);
+        size = target;
+        removedCount = 0;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        buckets = Arrays.copyOf(buckets, capacity);
+        live = Arrays.copyOf(live, capacity / 64);
+        stockBits = Arrays.copyOf(stockBits, capacity / 64);
+    }
+
+    private int categoryOrdinal(long categoryId) {
+        int ordinal = categoryOrdinals.get(categoryId) - 1;
+        if (ordinal < 0) {
+            ordinal = categoryCount++;
+            if (ordinal == categoryIds.length) {
+                categoryIds = Arrays.copyOf(categoryIds, ordinal * 2);
+            }
+            categoryIds[ordinal] = categoryId;
+            categoryOrdinals.put(categoryId, ordinal + 1);
+        }
+        return ordinal;
+    }
+
+    private byte bucketOf(long price) {
+        int position = Arrays.binarySearch(bucketBoundsMinor, price);
+        // A price equal to a bound starts the range above it
+        return (byte) (position >= 0 ? position + 1 : -position - 1);
+    }
+
+    private static void setBit(long[] bits, int index, boolean value) {
+        if (value) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    private static long toMinorUnits(BigDecimal price) {
+        BigDecimal minor = price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).movePointRight(PRICE_SCALE);
+        if (minor.unscaledValue().bitLength() > 63) {
+            return minor.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return minor.longValueExact();
+    }
+
+    /**
+     * Result of a facet query.
+     *
+     * @param ids    the requested page of product ids, in sort order
+     * @param facets the facet counts; category names are left for the caller to fill in
+     */
+    public record Result(Page<Long> ids, ProductFacets facets) {
+    }
+
+    /**
+     * Bounded heap keeping the first {@code limit} ordinals in sort order, with the last of
+     * them at the root so a better candidate can replace it in O(log limit).
+     */
+    private static final class TopK {
+
+        private final int[] heap;
+        private final long[] keys;
+        private final long[] ids;
+        private final boolean descending;
+        private int size;
+
+        private TopK(int limit, long[] keys, long[] ids, boolean descending) {
+            this.heap = new int[limit];
+            this.keys = keys;
+            this.ids = ids;
+            this.descending = descending;
+        }
+
+        private void offer(int ordinal) {
+            if (heap.length == 0) {
+                return;
+            }
+            if (size < heap.length) {
+                heap[size] = ordinal;
+                siftUp(size++);
+            } else if (before(ordinal, heap[0])) {
+                heap[0] = ordinal;
+                siftDown(0);
+            }
+        }
+
+        private int[] sorted() {
+            Integer[] ordered = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                ordered[i] = heap[i];
+            }
+            Arrays.sort(ordered, (a, b) -> before(a, b) ? -1 : before(b, a) ? 1 : 0);
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = ordered[i];
+            }
+            return result;
+        }
+
+        private boolean before(int a, int b) {
+            long keyA = keys[a];
+            long keyB = keys[b];
+            if (keyA == keyB) {
+                keyA = ids[a];
+                keyB = ids[b];
+            }
+            return descending ? keyA > keyB : keyA < keyB;
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (!before(heap[parent], heap[index])) {
+                    return;
+                }
+                swap(parent, index);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int last = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && before(heap[last], heap[left])) {
+                    last = left;
+                }
+                if (right < size && before(heap[last], heap[right])) {
+                    last = right;
+                }
+                if (last == index) {
+                    return;
+                }
+                swap(index, last);
+                index = last;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.ecommerce.search;
+
+import com.ecommerce.datasource.PrimaryReads;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the in-memory product indexes in step with writes they get no event for: writes made
+ * on other nodes, and statements that bypass the services.
+ * <p>
+ * Every interval, the products whose {@code catalog_updated_at} is past the previous poll
+ * are read from the primary and applied to each index. Stock updates leave that column alone,
+ * so sales are never re-read. A write may commit up to the commit delay after it set the
+ * column, and node clocks may differ by as much, so each poll reaches back by the delay; rows
+ * that an earlier poll already applied at the same {@code catalog_updated_at} are skipped
+ * before they reach the indexes. A product deleted on this node while a poll was reading is
+ * removed again after the poll applied it. Polling starts once every enabled index has
+ * loaded, and the first poll reaches back to startup.
+ * <p>
+ * Deleted products leave no row to poll, so every sweep interval the ids of active products
+ * are read in id order, one page at a time, and merged with the sorted ids of each index; the
+ * indexes drop those that are missing. Until then a deleted product only counts towards
+ * totals, as results are loaded from the database.
+ */
+@Component
+@Slf4j
+public class ProductIndexReconciler {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int SWEEP_BATCH_SIZE = 10000;
+
+    private final ProductRepository productRepository;
+    private final List<ReconciledIndex> indexes;
+    private final Duration commitDelay;
+    private final long sweepIntervalMillis;
+    private final Set<Long> deletedWhilePolling = ConcurrentHashMap.newKeySet();
+    // catalog_updated_at of the rows applied by polls within the commit delay, by product id
+    private final Map<Long, LocalDateTime> applied = new HashMap<>();
+
+    private LocalDateTime lastPoll = LocalDateTime.now();
+    private long lastSweep = System.currentTimeMillis();
+
+    public ProductIndexReconciler(ProductRepository productRepository,
+                                  List<ReconciledIndex> indexes,
+                                  @Value("${app.search.reconcile.commit-delay:5s}") Duration commitDelay,
+                                  @Value("${app.search.reconcile.sweep-interval:5m}") Duration sweepInterval) {
+        this.productRepository = productRepository;
+        this.indexes = indexes.stream().filter(ReconciledIndex::isEnabled).toList();
+        this.commitDelay = commitDelay;
+        this.sweepIntervalMillis = sweepInterval.toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${app.search.reconcile.interval-ms:1000}")
+    public void reconcile() {
+        // Loading skips products changed while it runs, so a poll applied during loading
+        // could leave an older state than the one loading would have read
+        if (indexes.isEmpty() || !indexes.stream().allMatch(ReconciledIndex::isReady)) {
+            return;
+        }
+        LocalDateTime started = LocalDateTime.now();
+        poll(lastPoll.minus(commitDelay));
+        lastPoll = started;
+
+        if (System.currentTimeMillis() - lastSweep > sweepIntervalMillis) {
+            sweep();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (event.isDeleted()) {
+            deletedWhilePolling.add(event.productId());
+        }
+    }
+
+    private void poll(LocalDateTime since) {
+        // A delete committed before this point is not in what the poll reads
+        deletedWhilePolling.clear();
+        applied.values().removeIf(version -> !version.isAfter(since));
+
+        long afterId = 0;
+        int changed = 0;
+        List<Object[]> batch;
+        do {
+            long after = afterId;
+            batch = PrimaryReads.call(() ->
+                    productRepository.findCatalogChangesAfter(since, after, PageRequest.of(0, BATCH_SIZE)));
+            List<ProductDTO> products = new ArrayList<>(batch.size());
+            for (Object[] row : batch) {
+                Long id = (Long) row[0];
+                LocalDateTime version = (LocalDateTime) row[8];
+                if (!version.equals(applied.put(id, version))) {
+                    products.add(toDTO(row));
+                }
+            }
+            List<Long> deleted = products.stream()
+                    .map(ProductDTO::getId)
+                    .filter(deletedWhilePolling::contains)
+                    .toList();
+            for (ReconciledIndex index : indexes) {
+                index.reconcile(products);
+                index.removeAll(deleted);
+            }
+            if (!batch.isEmpty()) {
+                afterId = (Long) batch.get(batch.size() - 1)[0];
+            }
+            changed += products.size();
+        } while (batch.size() == BATCH_SIZE);
+        log.debug("Reconciled the product indexes with {} products changed since {}", changed, since);
+    }
+
+    private void sweep() {
+        List<Sweep> sweeps = indexes.stream()
+                .map(index -> new Sweep(index, index.ids()))
+                .toList();
+        long afterId = 0;
+        int active = 0;
+        List<Long> batch;
+        do {
+            long after = afterId;
+            batch = PrimaryReads.call(() ->
+                    productRepository.findActiveIdsAfter(after, PageRequest.of(0, SWEEP_BATCH_SIZE)));
+            for (Long id : batch) {
+                sweeps.forEach(sweep -> sweep.seen(id));
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1);
+            }
+            active += batch.size();
+        } while (batch.size() == SWEEP_BATCH_SIZE);
+
+        // A product reactivated after its page was read is indexed again by the next poll
+        sweeps.forEach(Sweep::finish);
+        lastSweep = System.currentTimeMillis();
+        log.debug("Swept the product indexes against {} active products", active);
+    }
+
+    private static ProductDTO toDTO(Object[] row) {
+        return new ProductDTO((Long) row[0], (String) row[1], (String) row[2], (BigDecimal) row[3],
+                (Integer) row[4], (Long) row[5], (String) row[6], (Boolean) row[7]);
+    }
+
+    /**
+     * Merge of the sorted ids of one index with the active ids read in ascending order,
+     * collecting the indexed ids that were not read.
+     */
+    private static final class Sweep {
+
+        private final ReconciledIndex index;
+        private final long[] indexed;
+        private final List<Long> absent = new ArrayList<>();
+        private int position;
+
+        private Sweep(ReconciledIndex index, long[] indexed) {
+            this.index = index;
+            this.indexed = indexed;
+        }
+
+        private void seen(long activeId) {
+            while (position < indexed.length && indexed[position] < activeId) {
+                absent.add(indexed[position++]);
+            }
+            if (position < indexed.length && indexed[position] == activeId) {
+                position++;
+            }
+        }
+
+        private void finish() {
+            while (position < indexed.length) {
+                absent.add(indexed[position++]);
+            }
+            index.removeAll(absent);
+        }
+    }
+}
@@ -0,0 +1,563 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Columnar in-memory index of the prices of active products, for price range filters and
+ * price ordering without scanning the products table.
+ * <p>
+ * Each category has a column of product ids and prices in minor units, sorted by price and
+ * then id. A range is found with two binary searches, and a query over all categories merges
+ * the ranges of the columns. Columns are immutable: a product change copies the affected
+ * column, and an imported chunk is sorted and merged into each column it touches in one
+ * pass, so queries run without locks against a consistent snapshot. The index holds ids
+ * only; callers load the products of the requested page by id.
+ * <p>
+ * The index is loaded once at startup and then kept current from {@link ProductChangedEvent}s
+ * and {@link ProductsImportedEvent}s, and from {@link ProductIndexReconciler} for writes made
+ * elsewhere; until loading finishes, {@link #isReady()} returns false and callers should fall
+ * back to the database.
+ */
+@Component
+@Slf4j
+public class ProductPriceIndex implements ReconciledIndex {
+
+    private static final int LOAD_BATCH_SIZE = 10000;
+    private static final int PRICE_SCALE = 2;
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> categoryOf = new HashMap<>();
+
+    private volatile Map<Long, PriceColumn> columns = Map.of();
+    private volatile boolean ready;
+
+    public ProductPriceIndex(ProductRepository productRepository,
+                             @Value("${app.search.price-index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads the prices of all active products in id order, skipping any that changed while
+     * loading.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        Map<Long, ColumnBuilder> builders = new HashMap<>();
+        long afterId = 0;
+        int loaded = 0;
+        List<Object[]> batch;
+        do {
+            batch = productRepository.findActiveFacetValuesAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (Object[] row : batch) {
+                Long id = (Long) row[0];
+                builders.computeIfAbsent((Long) row[2], category -> new ColumnBuilder())
+                        .add(id, toMinorUnits((BigDecimal) row[1]));
+                afterId = id;
+            }
+            loaded += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        writeLock.lock();
+        try {
+            // Products changed during loading are already in the columns with their new price
+            Map<Long, PriceColumn> merged = new HashMap<>(columns);
+            builders.forEach((categoryId, builder) -> {
+                builder.removeAll(changedWhileLoading);
+                builder.ids.forEach(id -> categoryOf.put(id, categoryId));
+                merged.merge(categoryId, builder.build(), PriceColumn::merge);
+            });
+            columns = Map.copyOf(merged);
+            ready = true;
+            changedWhileLoading.clear();
+        } finally {
+            writeLock.unlock();
+        }
+        log.info("Product price index loaded with {} products in {} ms", loaded, System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Long productId = event.productId();
+        writeLock.lock();
+        try {
+            if (!ready) {
+                changedWhileLoading.add(productId);
+            }
+            Map<Long, PriceColumn> updated = new HashMap<>(columns);
+            Long previousCategory = categoryOf.remove(productId);
+            if (previousCategory != null) {
+                PriceColumn column = updated.get(previousCategory).without(productId);
+                if (column.size() == 0) {
+                    updated.remove(previousCategory);
+                } else {
+                    updated.put(previousCategory, column);
+                }
+            }
+            if (!event.isDeleted() && Boolean.TRUE.equals(event.product().getIsActive())) {
+                Long categoryId = event.product().getCategoryId();
+                long price = toMinorUnits(event.product().getPrice());
+                updated.put(categoryId, updated.getOrDefault(categoryId, PriceColumn.EMPTY).with(productId, price));
+                categoryOf.put(productId, categoryId);
+            }
+            columns = Map.copyOf(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, ColumnBuilder> builders = new HashMap<>();
+        for (ProductDTO product : event.products()) {
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                builders.computeIfAbsent(product.getCategoryId(), category -> new ColumnBuilder())
+                        .add(product.getId(), toMinorUnits(product.getPrice()));
+            }
+        }
+        writeLock.lock();
+        try {
+            if (!ready) {
+                event.products().forEach(product -> changedWhileLoading.add(product.getId()));
+            }
+            // Imported products are new, so they are merged without removing anything first
+            Map<Long, PriceColumn> updated = new HashMap<>(columns);
+            builders.forEach((categoryId, builder) -> {
+                builder.ids.forEach(id -> categoryOf.put(id, categoryId));
+                updated.merge(categoryId, builder.build(), PriceColumn::merge);
+            });
+            columns = Map.copyOf(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies products as read from the database: each is removed from the column it is in,
+     * and the active ones are merged into the column of their category, one copy of each
+     * affected column per call.
+     */
+    @Override
+    public void reconcile(List<ProductDTO> products) {
+        if (!enabled || products.isEmpty()) {
+            return;
+        }
+        Map<Long, ColumnBuilder> builders = new HashMap<>();
+        for (ProductDTO product : products) {
+            if (Boolean.TRUE.equals(product.getIsActive())) {
+                builders.computeIfAbsent(product.getCategoryId(), category -> new ColumnBuilder())
+                        .add(product.getId(), toMinorUnits(product.getPrice()));
+            }
+        }
+        writeLock.lock();
+        try {
+            if (!ready) {
+                products.forEach(product -> changedWhileLoading.add(product.getId()));
+            }
+            Map<Long, PriceColumn> updated = new HashMap<>(columns);
+            remove(updated, products.stream().map(ProductDTO::getId).toList());
+            builders.forEach((categoryId, builder) -> {
+                builder.ids.forEach(id -> categoryOf.put(id, categoryId));
+                updated.merge(categoryId, builder.build(), PriceColumn::merge);
+            });
+            columns = Map.copyOf(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public long[] ids() {
+        writeLock.lock();
+        try {
+            long[] ids = new long[categoryOf.size()];
+            int i = 0;
+            for (Long id : categoryOf.keySet()) {
+                ids[i++] = id;
+            }
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Long> productIds) {
+        if (!ready || productIds.isEmpty()) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            Map<Long, PriceColumn> updated = new HashMap<>(columns);
+            remove(updated, productIds);
+            columns = Map.copyOf(updated);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the ids of active products priced within the range, ordered by price and then id.
+     *
+     * @param categoryId the category to search, or {@code null} for all categories
+     * @param minPrice   the lowest price, inclusive, or {@code null} for no lower bound
+     * @param maxPrice   the highest price, inclusive, or {@code null} for no upper bound
+     * @param direction  the price order
+     * @param pageable   the requested page; its sort is ignored in favour of {@code direction}
+     * @return the page of product ids, with the total number of matching products
+     */
+    public Page<Long> findIds(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                              Sort.Direction direction, Pageable pageable) {
+        long low = minPrice == null ? Long.MIN_VALUE : toMinorUnits(minPrice.setScale(PRICE_SCALE, RoundingMode.CEILING));
+        long high = maxPrice == null ? Long.MAX_VALUE : toMinorUnits(maxPrice.setScale(PRICE_SCALE, RoundingMode.FLOOR));
+
+        Map<Long, PriceColumn> snapshot = columns;
+        Collection<PriceColumn> candidates = categoryId == null
+                ? snapshot.values()
+                : snapshot.containsKey(categoryId) ? List.of(snapshot.get(categoryId)) : List.of();
+
+        List<Range> ranges = new ArrayList<>(candidates.size());
+        long total = 0;
+        if (low <= high) {
+            for (PriceColumn column : candidates) {
+                Range range = column.range(low, high, direction == Sort.Direction.DESC);
+                if (range.remaining() > 0) {
+                    ranges.add(range);
+                    total += range.remaining();
+                }
+            }
+        }
+        if (pageable.getOffset() >= total) {
+            return new PageImpl<>(List.of(), pageable, total);
+        }
+        if (ranges.size() == 1) {
+            // One column, such as a single category: the page is a slice of it
+            return new PageImpl<>(ranges.get(0).slice((int) pageable.getOffset(), pageable.getPageSize()),
+                    pageable, total);
+        }
+        return new PageImpl<>(merge(ranges, pageable, direction), pageable, total);
+    }
+
+    /**
+     * Removes the products from their columns, filtering each affected column once. Must be
+     * called with the write lock held.
+     */
+    private void remove(Map<Long, PriceColumn> updated, Collection<Long> productIds) {
+        Map<Long, Set<Long>> removedByCategory = new HashMap<>();
+        for (Long productId : productIds) {
+            Long categoryId = categoryOf.remove(productId);
+            if (categoryId != null) {
+                removedByCategory.computeIfAbsent(categoryId, category -> new HashSet<>()).add(productId);
+            }
+        }
+        removedByCategory.forEach((categoryId, removed) -> {
+            PriceColumn column = updated.get(categoryId).withoutAll(removed);
+            if (column.size() == 0) {
+                updated.remove(categoryId);
+            } else {
+                updated.put(categoryId, column);
+            }
+        });
+    }
+
+    /**
+     * Merges the ranges in price order, skipping to the requested page.
+     */
+    private static List<Long> merge(List<Range> ranges, Pageable pageable, Sort.Direction direction) {
+        Comparator<Range> order = direction == Sort.Direction.DESC
+                ? Range::compareDescending
+                : Range::compareAscending;
+        PriorityQueue<Range> heads = new PriorityQueue<>(Math.max(1, ranges.size()), order);
+        heads.addAll(ranges);
+
+        long skip = pageable.getOffset();
+        List<Long> ids = new ArrayList<>(pageable.getPageSize());
+        while (!heads.isEmpty() && ids.size() < pageable.getPageSize()) {
+            Range head = heads.poll();
+            if (skip > 0) {
+                skip--;
+            } else {
+                ids.add(head.id());
+            }
+            if (head.advance()) {
+                heads.add(head);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Converts a price to minor units, rounding as {@code NUMERIC(19,2)} does on insert.
+     * Values beyond the range of {@code long} saturate, which is safe for range bounds.
+     */
+    private static long toMinorUnits(BigDecimal price) {
+        BigDecimal minor = price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).movePointRight(PRICE_SCALE);
+        if (minor.unscaledValue().bitLength() > 63) {
+            return minor.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return minor.longValueExact();
+    }
+
+    /**
+     * Immutable column of one category, sorted by price and then id.
+     */
+    private static final class PriceColumn {
+
+        private static final PriceColumn EMPTY = new PriceColumn(new long[0], new long[0]);
+
+        private final long[] prices;
+        private final long[] ids;
+
+        private PriceColumn(long[] prices, long[] ids) {
+            this.prices = prices;
+            this.ids = ids;
+        }
+
+        private int size() {
+            return ids.length;
+        }
+
+        private PriceColumn with(long id, long price) {
+            int position = position(price, id);
+            long[] newPrices = new long[prices.length + 1];
+            long[] newIds = new long[ids.length + 1];
+            System.arraycopy(prices, 0, newPrices, 0, position);
+            System.arraycopy(ids, 0, newIds, 0, position);
+            newPrices[position] = price;
+            newIds[position] = id;
+            System.arraycopy(prices, position, newPrices, position + 1, prices.length - position);
+            System.arraycopy(ids, position, newIds, position + 1, ids.length - position);
+            return new PriceColumn(newPrices, newIds);
+        }
+
+        private PriceColumn without(long id) {
+            int position = -1;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    position = i;
+                    break;
+                }
+            }
+            if (position < 0) {
+                return this;
+            }
+            long[] newPrices = new long[prices.length - 1];
+            long[] newIds = new long[ids.length - 1];
+            System.arraycopy(prices, 0, newPrices, 0, position);
+            System.arraycopy(ids, 0, newIds, 0, position);
+            System.arraycopy(prices, position + 1, newPrices, position, prices.length - position - 1);
+            System.arraycopy(ids, position + 1, newIds, position, ids.length - position - 1);
+            return new PriceColumn(newPrices, newIds);
+        }
+
+        private PriceColumn withoutAll(Set<Long> removed) {
+            long[] newPrices = new long[prices.length];
+            long[] newIds = new long[ids.length];
+            int size = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (!removed.contains(ids[i])) {
+                    newPrices[size] = prices[i];
+                    newIds[size++] = ids[i];
+                }
+            }
+            return new PriceColumn(Arrays.copyOf(newPrices, size), Arrays.copyOf(newIds, size));
+        }
+
+        /**
+         * Merges two columns without common ids in one pass.
+         */
+        private static PriceColumn merge(PriceColumn a, PriceColumn b) {
+            int size = a.size() + b.size();
+            long[] prices = new long[size];
+            long[] ids = new long[size];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < size; k++) {
+                boolean fromA = j == b.size() || i < a.size()
+                        && (a.prices[i] < b.prices[j] || a.prices[i] == b.prices[j] && a.ids[i] < b.ids[j]);
+                if (fromA) {
+                    prices[k] = a.prices[i];
+                    ids[k] = a.ids[i++];
+                } else {
+                    prices[k] = b.prices[j];
+                    ids[k] = b.ids[j++];
+                }
+            }
+            return new PriceColumn(prices, ids);
+        }
+
+        private Range range(long low, long high, boolean descending) {
+            int from = position(low, Long.MIN_VALUE);
+            int to = position(high, Long.MAX_VALUE);
+            return descending ? new Range(this, to - 1, from - 1, -1) : new Range(this, from, to, 1);
+        }
+
+        /**
+         * Returns the index of the first entry ordered at or after {@code (price, id)}.
+         */
+        private int position(long price, long id) {
+            int low = 0;
+            int high = prices.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (prices[mid] < price || prices[mid] == price && ids[mid] < id) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Cursor over a contiguous part of a column, walking up or down.
+     */
+    private static final class Range {
+
+        private final PriceColumn column;
+        private final int end;
+        private final int step;
+        private int position;
+
+        private Range(PriceColumn column, int start, int end, int step) {
+            this.column = column;
+            this.position = start;
+            this.end = end;
+            this.step = step;
+        }
+
+        private int remaining() {
+            return (end - position) * step;
+        }
+
+        private long price() {
+            return column.prices[position];
+        }
+
+        private long id() {
+            return column.ids[position];
+        }
+
+        /**
+         * Returns up to {@code count} ids starting {@code skip} entries into the range.
+         */
+        private List<Long> slice(int skip, int count) {
+            int length = Math.min(count, remaining() - skip);
+            List<Long> ids = new ArrayList<>(length);
+            for (int i = 0, at = position + skip * step; i < length; i++, at += step) {
+                ids.add(column.ids[at]);
+            }
+            return ids;
+        }
+
+        private boolean advance() {
+            position += step;
+            return position != end;
+        }
+
+        private static int compareAscending(Range a, Range b) {
+            int byPrice = Long.compare(a.price(), b.price());
+            return byPrice != 0 ? byPrice : Long.compare(a.id(), b.id());
+        }
+
+        private static int compareDescending(Range a, Range b) {
+            return compareAscending(b, a);
+        }
+    }
+
+    /**
+     * Collects unsorted entries and sorts them once into a column.
+     */
+    private static final class ColumnBuilder {
+
+        private final List<Long> ids = new ArrayList<>();
+        private final List<Long> prices = new ArrayList<>();
+
+        private void add(long id, long price) {
+            ids.add(id);
+            prices.add(price);
+        }
+
+        private void removeAll(Set<Long> removed) {
+            for (int i = ids.size() - 1; i >= 0 && !removed.isEmpty(); i--) {
+                if (removed.contains(ids.get(i))) {
+                    ids.remove(i);
+                    prices.remove(i);
+                }
+            }
+        }
+
+        private PriceColumn build() {
+            Integer[] order = new Integer[ids.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> {
+                int byPrice = Long.compare(prices.get(a), prices.get(b));
+                return byPrice != 0 ? byPrice : Long.compare(ids.get(a), ids.get(b));
+            });
+            long[] sortedPrices = new long[order.length];
+            long[] sortedIds = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedPrices[i] = prices.get(order[i]);
+                sortedIds[i] = ids.get(order[i]);
+            }
+            return new PriceColumn(sortedPrices, sortedIds);
+        }
+    }
+}
@@ -0,0 +1,581 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * In-memory inverted index over the name and description of active products.
+ * <p>
+ * Results are ranked with BM25, with name terms counted twice. Each query term also matches
+ * indexed terms it is a prefix of, and terms within one edit (insertion, deletion, substitution
+ * or adjacent transposition), at a reduced weight. The index holds ids and terms only;
+ * callers load the products of the requested page by id, so results show current prices,
+ * stock and category names. The index is loaded once at startup and then kept current from
+ * {@link ProductChangedEvent}s, and from {@link ProductIndexReconciler} for writes made
+ * elsewhere; until loading finishes, {@link #isReady()} returns false and callers should fall
+ * back to the database.
+ */
+@Component
+@Slf4j
+public class ProductSearchIndex implements ReconciledIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int NAME_WEIGHT = 2;
+    private static final float PREFIX_WEIGHT = 0.8f;
+    private static final float FUZZY_WEIGHT = 0.6f;
+    private static final int MIN_PREFIX_LENGTH = 3;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final int LOAD_BATCH_SIZE = 5000;
+    private static final int MIN_REMOVED_BEFORE_COMPACTION = 1000;
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Set<Long> changedWhileLoading = ConcurrentHashMap.newKeySet();
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final TreeMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+    private long totalLength;
+    private int removedCount;
+
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${app.search.index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads all active products in id order, skipping any that changed while loading.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        long afterId = 0;
+        int loaded = 0;
+        List<ProductDTO> batch;
+        do {
+            batch = productRepository.findActiveDTOsAfter(afterId, PageRequest.of(0, LOAD_BATCH_SIZE));
+            lock.writeLock().lock();
+            try {
+                for (ProductDTO product : batch) {
+                    if (!changedWhileLoading.contains(product.getId())) {
+                        put(product);
+                    }
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!batch.isEmpty()) {
+                afterId = batch.get(batch.size() - 1).getId();
+            }
+            loaded += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        ready = true;
+        changedWhileLoading.clear();
+        log.info("Product search index loaded with {} products in {} ms", loaded, System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            changedWhileLoading.add(event.productId());
+        }
+        lock.writeLock().lock();
+        try {
+            apply(event.productId(), event.product());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (!ready) {
+            event.products().forEach(product -> changedWhileLoading.add(product.getId()));
+        }
+        lock.writeLock().lock();
+        try {
+            event.products().forEach(product -> apply(product.getId(), product));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies products as read from the database, skipping those already indexed with the
+     * same name and description.
+     */
+    @Override
+    public void reconcile(List<ProductDTO> products) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (ProductDTO product : products) {
+                if (!ready) {
+                    changedWhileLoading.add(product.getId());
+                }
+                if (!isIndexedAs(product)) {
+                    apply(product.getId(), product);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long[] ids() {
+        lock.readLock().lock();
+        try {
+            long[] ids = new long[ordinals.size()];
+            int i = 0;
+            for (Long id : ordinals.keySet()) {
+                ids[i++] = id;
+            }
+            Arrays.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<Long> productIds) {
+        if (!ready || productIds.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(id -> apply(id, null));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns whether the keyword has any term to search for, that is any word other than a
+     * stop word. A keyword without terms matches no product.
+     */
+    public boolean hasTerms(String keyword) {
+        return !SearchTokenizer.tokenize(keyword).isEmpty();
+    }
+
+    /**
+     * Returns the ids of active products matching any term of the keyword, best match first.
+     *
+     * @param keyword  the search text
+     * @param pageable the requested page; sorting is ignored in favour of relevance
+     * @return the page of matching product ids, with the total number of matches
+     */
+    public Page<Long> searchIds(String keyword, Pageable pageable) {
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(keyword));
+
+        lock.readLock().lock();
+        try {
+            int docCount = ordinals.size();
+            if (terms.isEmpty() || docCount == 0) {
+                return Page.empty(pageable);
+            }
+            double avgLength = (double) totalLength / docCount;
+            ScoreMap scores = new ScoreMap();
+            for (String term : terms) {
+                expand(term).forEach((indexed, weight) ->
+                        accumulate(postings.get(indexed), weight, docCount, avgLength, scores));
+            }
+            return topHits(scores, pageable);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Passes the id of every active product matching any term of the keyword, with the same
+     * prefix and typo expansion as {@link #searchIds}, to the consumer. An id may be passed more
+     * than once. Runs under the read lock, so the consumer must not call back into this index.
+     */
+    public void forEachMatch(String keyword, LongConsumer consumer) {
+        Set<String> terms = new LinkedHashSet<>(SearchTokenizer.tokenize(keyword));
+
+        lock.readLock().lock();
+        try {
+            for (String term : terms) {
+                for (String indexed : expand(term).keySet()) {
+                    PostingList list = postings.get(indexed);
+                    for (int i = 0; list != null && i < list.size; i++) {
+                        Entry entry = entries.get(list.ordinals[i]);
+                        if (entry != null) {
+                            consumer.accept(entry.productId);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Map<String, Float> expand(String term) {
+        Map<String, Float> expansions = new LinkedHashMap<>();
+        if (postings.containsKey(term)) {
+            expansions.put(term, 1.0f);
+        }
+        if (term.length() >= MIN_PREFIX_LENGTH) {
+            postings.subMap(term, false, term + Character.MAX_VALUE, false).keySet().stream()
+                    .limit(MAX_EXPANSIONS)
+                    .forEach(indexed -> expansions.putIfAbsent(indexed, PREFIX_WEIGHT));
+        }
+        if (term.length() >= MIN_FUZZY_LENGTH) {
+            fuzzyCandidates(term).stream()
+                    .limit(MAX_EXPANSIONS)
+                    .forEach(indexed -> expansions.putIfAbsent(indexed, FUZZY_WEIGHT));
+        }
+        return expansions;
+    }
+
+    private Set<String> fuzzyCandidates(String term) {
+        Set<String> candidates = new HashSet<>(deletions.getOrDefault(term, Set.of()));
+        for (int i = 0; i < term.length(); i++) {
+            String deleted = deleteAt(term, i);
+            if (postings.containsKey(deleted)) {
+                candidates.add(deleted);
+            }
+            candidates.addAll(deletions.getOrDefault(deleted, Set.of()));
+        }
+        candidates.removeIf(candidate -> candidate.equals(term) || !withinOneEdit(term, candidate));
+        return candidates;
+    }
+
+    private void accumulate(PostingList list, float weight, int docCount, double avgLength, ScoreMap scores) {
+        if (list == null) {
+            return;
+        }
+        double idf = Math.log(1 + (docCount - list.liveCount + 0.5) / (list.liveCount + 0.5));
+        for (int i = 0; i < list.size; i++) {
+            int ordinal = list.ordinals[i];
+            Entry entry = entries.get(ordinal);
+            if (entry == null) {
+                continue;
+            }
+            int tf = list.frequencies[i];
+            double norm = tf * (K1 + 1) / (tf + K1 * (1 - B + B * entry.length / avgLength));
+            scores.add(ordinal, (float) (weight * idf * norm));
+        }
+    }
+
+    private Page<Long> topHits(ScoreMap scores, Pageable pageable) {
+        long offset = pageable.getOffset();
+        if (offset >= scores.size) {
+            return new PageImpl<>(List.of(), pageable, scores.size);
+        }
+        int limit = (int) Math.min(offset + pageable.getPageSize(), scores.size);
+        Comparator<Hit> byRelevance = Comparator.comparingDouble(Hit::score)
+                .thenComparing(Comparator.comparingLong(Hit::productId).reversed());
+        PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, byRelevance);
+        scores.forEach((ordinal, score) -> {
+            best.add(new Hit(entries.get(ordinal).productId, score));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+
+        Hit[] ranked = best.toArray(new Hit[0]);
+        Arrays.sort(ranked, byRelevance.reversed());
+        List<Long> content = new ArrayList<>(ranked.length - (int) offset);
+        for (int i = (int) offset; i < ranked.length; i++) {
+            content.add(ranked[i].productId());
+        }
+        return new PageImpl<>(content, pageable, scores.size);
+    }
+
+    /**
+     * Indexes the product as committed, or removes it if it was deleted or deactivated.
+     * Must be called with the write lock held.
+     */
+    private void apply(Long productId, ProductDTO product) {
+        remove(productId);
+        if (product != null && Boolean.TRUE.equals(product.getIsActive())) {
+            put(product);
+        }
+        if (removedCount > Math.max(MIN_REMOVED_BEFORE_COMPACTION, ordinals.size() / 4)) {
+            compact();
+        }
+    }
+
+    private boolean isIndexedAs(ProductDTO product) {
+        Integer ordinal = ordinals.get(product.getId());
+        if (!Boolean.TRUE.equals(product.getIsActive())) {
+            return ordinal == null;
+        }
+        return ordinal != null && entries.get(ordinal).contentHash == contentHash(product);
+    }
+
+    private static int contentHash(ProductDTO product) {
+        return Objects.hash(product.getName(), product.getDescription());
+    }
+
+    private void put(ProductDTO product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        List<String> nameTokens = SearchTokenizer.tokenize(product.getName());
+        List<String> descriptionTokens = SearchTokenizer.tokenize(product.getDescription());
+        nameTokens.forEach(token -> frequencies.merge(token, NAME_WEIGHT, Integer::sum));
+        descriptionTokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+
+        String[] terms = new String[frequencies.size()];
+        int[] termFrequencies = new int[terms.length];
+        int i = 0;
+        for (Map.Entry<String, Integer> frequency : frequencies.entrySet()) {
+            terms[i] = frequency.getKey();
+            termFrequencies[i++] = frequency.getValue();
+        }
+        put(new Entry(product.getId(), terms, termFrequencies,
+                nameTokens.size() * NAME_WEIGHT + descriptionTokens.size(), contentHash(product)));
+    }
+
+    private void put(Entry entry) {
+        int ordinal = entries.size();
+        entries.add(entry);
+        ordinals.put(entry.productId, ordinal);
+        totalLength += entry.length;
+        for (int i = 0; i < entry.terms.length; i++) {
+            postings.computeIfAbsent(entry.terms[i], this::newPostingList).add(ordinal, entry.frequencies[i]);
+        }
+    }
+
+    private void remove(Long productId) {
+        Integer ordinal = ordinals.remove(productId);
+        if (ordinal == null) {
+            return;
+        }
+        Entry entry = entries.set(ordinal, null);
+        totalLength -= entry.length;
+        removedCount++;
+        for (String term : entry.terms) {
+            PostingList list = postings.get(term);
+            if (--list.liveCount == 0) {
+                postings.remove(term);
+                removeDeletions(term);
+            }
+        }
+    }
+
+    private void compact() {
+        List<Entry> live = entries.stream()
+                .filter(entry -> entry != null)
+                .toList();
+        entries.clear();
+        ordinals.clear();
+        postings.clear();
+        deletions.clear();
+        totalLength = 0;
+        removedCount = 0;
+        live.forEach(this::put);
+        log.debug("Compacted product search index to {} products", live.size());
+    }
+
+    private PostingList newPostingList(String term) {
+        if (term.length() >= MIN_FUZZY_LENGTH) {
+            for (int i = 0; i < term.length(); i++) {
+                deletions.computeIfAbsent(deleteAt(term, i), key -> new HashSet<>(2)).add(term);
+            }
+        }
+        return new PostingList();
+    }
+
+    private void removeDeletions(String term) {
+        if (term.length() < MIN_FUZZY_LENGTH) {
+            return;
+        }
+        for (int i = 0; i < term.length(); i++) {
+            String deleted = deleteAt(term, i);
+            Set<String> terms = deletions.get(deleted);
+            if (terms != null && terms.remove(term) && terms.isEmpty()) {
+                deletions.remove(deleted);
+            }
+        }
+    }
+
+    private static String deleteAt(String term, int index) {
+        return term.substring(0, index) + term.substring(index + 1);
+    }
+
+    /**
+     * Optimal string alignment distance of at most one.
+     */
+    private static boolean withinOneEdit(String a, String b) {
+        int lengthDifference = a.length() - b.length();
+        if (Math.abs(lengthDifference) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (lengthDifference > 0) {
+            return a.substring(i + 1).equals(b.substring(i));
+        }
+        if (lengthDifference < 0) {
+            return a.substring(i).equals(b.substring(i + 1));
+        }
+        if (i >= a.length() - 1) {
+            return true;
+        }
+        if (a.substring(i + 1).equals(b.substring(i + 1))) {
+            return true;
+        }
+        return a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                && a.substring(i + 2).equals(b.substring(i + 2));
+    }
+
+    private record Entry(long productId, String[] terms, int[] frequencies, int length, int contentHash) {
+    }
+
+    private record Hit(long productId, float score) {
+    }
+
+    /**
+     * Document ordinals and term frequencies for one term. Ordinals of removed documents stay
+     * in the list until the next compaction; {@code liveCount} is the document frequency.
+     */
+    private static final class PostingList {
+
+        private int[] ordinals = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        private int liveCount;
+
+        private void add(int ordinal, int frequency) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            ordinals[size] = ordinal;
+            frequencies[size] = frequency;
+            size++;
+            liveCount++;
+        }
+    }
+
+    /**
+     * Open-addressing map from document ordinal to accumulated score.
+     */
+    private static final class ScoreMap {
+
+        private static final int EMPTY = -1;
+
+        private int[] keys = newKeys(64);
+        private float[] values = new float[64];
+        private int size;
+
+        private void add(int key, float value) {
+            if (size * 2 >= keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (keys[slot] == EMPTY) {
+                keys[slot] = key;
+                size++;
+            }
+            values[slot] += value;
+        }
+
+        private void forEach(ScoreConsumer consumer) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY) {
+                    consumer.accept(keys[slot], values[slot]);
+                }
+            }
+        }
+
+        private void resize() {
+            int[] oldKeys = keys;
+            float[] oldValues = values;
+            keys = newKeys(oldKeys.length * 2);
+            values = new float[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != EMPTY) {
+                    add(oldKeys[slot], oldValues[slot]);
+                }
+            }
+        }
+
+        private static int[] newKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        private static int mix(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ScoreConsumer {
+        void accept(int ordinal, float score);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ecommerce.search;
+
+import com.ecommerce.dto.ProductDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * In-memory product index that {@link ProductIndexReconciler} keeps in step with writes it
+ * gets no event for.
+ */
+interface ReconciledIndex {
+
+    boolean isEnabled();
+
+    boolean isReady();
+
+    /**
+     * Applies products as read from the database, active or not.
+     */
+    void reconcile(List<ProductDTO> products);
+
+    /**
+     * Returns the ids of the indexed products in ascending order.
+     */
+    long[] ids();
+
+    /**
+     * Removes the given products, which are no longer active.
+     */
+    void removeAll(Collection<Long> productIds);
+}
@@ -0,0 +1,22 @@
+package com.ecommerce.security;
+
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The verified claims of a signed access token.
+ *
+ * @param subject           the username the token was issued to
+ * @param authorities       the authorities of the user
+ * @param expiresAt         when the token stops being accepted
+ * @param credentialVersion the credential version of the user at login
+ */
+public record AccessToken(String subject, List<GrantedAuthority> authorities, Instant expiresAt,
+                          String credentialVersion) {
+
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
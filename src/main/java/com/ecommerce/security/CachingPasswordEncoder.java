@@ -0,0 +1,77 @@
+package com.ecommerce.security;
+
+import com.ecommerce.cache.NearCache;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Remembers recent successful password verifications so repeated Basic-auth requests from
+ * the same client skip the slow hash. Entries are keyed by a SHA-256 digest of the stored
+ * hash and the raw password, so a password change makes the old entries unreachable and
+ * neither value is kept in memory. Failed verifications are never cached.
+ */
+public class CachingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final NearCache<String, Boolean> verifiedCredentials;
+
+    public CachingPasswordEncoder(PasswordEncoder delegate, NearCache<String, Boolean> verifiedCredentials) {
+        this.delegate = delegate;
+        this.verifiedCredentials = verifiedCredentials;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+        try {
+            return verifiedCredentials.get(key(rawPassword, encodedPassword), key -> {
+                if (!delegate.matches(rawPassword, encodedPassword)) {
+                    throw Mismatch.INSTANCE;
+                }
+                return Boolean.TRUE;
+            });
+        } catch (Mismatch e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private static String key(CharSequence rawPassword, String encodedPassword) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(encodedPassword.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(rawPassword.toString().getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Signals a failed verification through the cache without caching it.
+     */
+    private static final class Mismatch extends RuntimeException {
+
+        private static final Mismatch INSTANCE = new Mismatch();
+
+        private Mismatch() {
+            super("Password does not match", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.security;
+
+import com.ecommerce.cache.NearCache;
+import com.ecommerce.model.User;
+import com.ecommerce.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Loads users from the {@code users} table. User records are cached by username and evicted
+ * by {@link UserCacheEvictionListener} when a user changes on this node, and by
+ * {@link UserCacheReconciler} within one poll interval when it changes elsewhere.
+ */
+@Service
+@RequiredArgsConstructor
+public class DatabaseUserDetailsService implements UserDetailsService {
+
+    private final UserRepository userRepository;
+    private final NearCache<String, UserDetails> userDetailsCache;
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public UserDetails loadUserByUsername(String username) {
+        UserDetails cached = userDetailsCache.get(username, this::load);
+        // Authentication erases the password of the returned object, so hand out a copy
+        return org.springframework.security.core.userdetails.User.withUserDetails(cached).build();
+    }
+
+    private UserDetails load(String username) {
+        User user = userRepository.findByUsername(username)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
+        return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                .password(user.getPassword())
+                .roles(roles(user.getRole()))
+                .disabled(!Boolean.TRUE.equals(user.getIsActive()))
+                .build();
+    }
+
+    private static String[] roles(User.UserRole role) {
+        return switch (role) {
+            case ADMIN -> new String[]{"ADMIN", "USER"};
+            case VENDOR -> new String[]{"VENDOR", "USER"};
+            case USER -> new String[]{"USER"};
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.security;
+
+import org.springframework.security.core.AuthenticationException;
+
+public class InvalidTokenException extends AuthenticationException {
+
+    public InvalidTokenException(String message) {
+        super(message);
+    }
+}
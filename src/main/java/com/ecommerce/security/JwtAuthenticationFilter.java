@@ -0,0 +1,90 @@
+package com.ecommerce.security;
+
+import com.ecommerce.cache.NearCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+
+/**
+ * Authenticates requests that carry a bearer token issued by {@link JwtTokenService}.
+ * Verified tokens are cached, so repeat requests with the same token skip the HMAC and JSON
+ * parsing. Requests with a missing or invalid token continue unauthenticated and are
+ * rejected by the entry point if the endpoint needs authentication.
+ * <p>
+ * On every request, a token is checked against the user as cached by
+ * {@link DatabaseUserDetailsService}: it is only accepted while the user is enabled and has
+ * the credential version the token was issued with, and grants the user's current
+ * authorities. The user cache is evicted on every node within one poll interval of a change
+ * by {@link UserCacheReconciler}, so a password change or deactivation revokes the user's
+ * tokens cluster-wide within that interval.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenService tokenService;
+    private final UserDetailsService userDetailsService;
+    private final NearCache<String, AccessToken> tokenCache;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            authenticate(header.substring(BEARER_PREFIX.length()).trim());
+        }
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(String token) {
+        try {
+            AccessToken accessToken = tokenCache.get(token, tokenService::parse);
+            if (accessToken.isExpired(Instant.now())) {
+                tokenCache.invalidate(token);
+                throw new InvalidTokenException("Token expired");
+            }
+            UserDetails user = currentUser(accessToken);
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                    accessToken.subject(), null, user.getAuthorities()));
+            SecurityContextHolder.setContext(context);
+        } catch (InvalidTokenException e) {
+            log.debug("Rejected bearer token: {}", e.getMessage());
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private UserDetails currentUser(AccessToken accessToken) {
+        UserDetails user;
+        try {
+            user = userDetailsService.loadUserByUsername(accessToken.subject());
+        } catch (UsernameNotFoundException e) {
+            throw new InvalidTokenException("Unknown user");
+        }
+        if (!user.isEnabled() || !MessageDigest.isEqual(
+                tokenService.credentialVersion(user).getBytes(StandardCharsets.US_ASCII),
+                accessToken.credentialVersion().getBytes(StandardCharsets.US_ASCII))) {
+            throw new InvalidTokenException("Token revoked");
+        }
+        return user;
+    }
+}
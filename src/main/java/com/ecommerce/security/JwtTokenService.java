@@ -0,0 +1,159 @@
+package com.ecommerce.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Issues and verifies HS256-signed JSON Web Tokens with the configured secret. Verification
+ * is a single HMAC over the token, so it costs microseconds rather than a password hash.
+ * <p>
+ * Each token carries the credential version of its user, a digest of the stored password
+ * hash, so that a password change revokes the tokens issued before it.
+ */
+@Component
+public class JwtTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final String HEADER = ENCODER.encodeToString(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+    private static final int CREDENTIAL_VERSION_BYTES = 12;
+
+    private final ObjectMapper objectMapper;
+    private final Mac prototype;
+    private final long expirationMillis;
+
+    public JwtTokenService(ObjectMapper objectMapper,
+                           @Value("${app.jwt.secret}") String secret,
+                           @Value("${app.jwt.expiration}") long expirationMillis) {
+        byte[] key = secret.getBytes(StandardCharsets.UTF_8);
+        if (key.length < 32) {
+            throw new IllegalStateException("app.jwt.secret must be at least 32 bytes long");
+        }
+        try {
+            this.prototype = Mac.getInstance(ALGORITHM);
+            this.prototype.init(new SecretKeySpec(key, ALGORITHM));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+        this.objectMapper = objectMapper;
+        this.expirationMillis = expirationMillis;
+    }
+
+    public long getExpirationMillis() {
+        return expirationMillis;
+    }
+
+    /**
+     * Issues a token for the user, as loaded with its stored password hash.
+     */
+    public String issue(UserDetails user) {
+        List<String> authorities = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        long issuedAt = Instant.now().getEpochSecond();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.getUsername());
+        claims.put("roles", authorities);
+        claims.put("ver", credentialVersion(user));
+        claims.put("iat", issuedAt);
+        claims.put("exp", issuedAt + expirationMillis / 1000);
+
+        String payload;
+        try {
+            payload = ENCODER.encodeToString(objectMapper.writeValueAsBytes(claims));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize token claims", e);
+        }
+        String signingInput = HEADER + "." + payload;
+        return signingInput + "." + ENCODER.encodeToString(sign(signingInput));
+    }
+
+    /**
+     * Verifies the signature and expiry of a token and returns its claims.
+     *
+     * @throws InvalidTokenException if the token is malformed, forged or expired
+     */
+    public AccessToken parse(String token) {
+        int headerEnd = token.indexOf('.');
+        int payloadEnd = token.indexOf('.', headerEnd + 1);
+        if (headerEnd < 0 || payloadEnd < 0 || token.indexOf('.', payloadEnd + 1) >= 0) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        if (!HEADER.equals(token.substring(0, headerEnd))) {
+            throw new InvalidTokenException("Unsupported token header");
+        }
+
+        JsonNode claims;
+        try {
+            byte[] signature = DECODER.decode(token.substring(payloadEnd + 1));
+            if (!MessageDigest.isEqual(sign(token.substring(0, payloadEnd)), signature)) {
+                throw new InvalidTokenException("Invalid token signature");
+            }
+            claims = objectMapper.readTree(DECODER.decode(token.substring(headerEnd + 1, payloadEnd)));
+        } catch (IllegalArgumentException | IOException e) {
+            throw new InvalidTokenException("Malformed token");
+        }
+
+        String subject = claims.path("sub").asText(null);
+        String credentialVersion = claims.path("ver").asText(null);
+        if (subject == null || credentialVersion == null || !claims.path("exp").canConvertToLong()) {
+            throw new InvalidTokenException("Malformed token");
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        claims.path("roles").forEach(role -> authorities.add(new SimpleGrantedAuthority(role.asText())));
+
+        AccessToken accessToken = new AccessToken(subject, List.copyOf(authorities),
+                Instant.ofEpochSecond(claims.path("exp").asLong()), credentialVersion);
+        if (accessToken.isExpired(Instant.now())) {
+            throw new InvalidTokenException("Token expired");
+        }
+        return accessToken;
+    }
+
+    /**
+     * Returns the credential version of the user: a digest of the stored password hash, which
+     * changes with the password and reveals nothing about it.
+     */
+    String credentialVersion(UserDetails user) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(user.getPassword().getBytes(StandardCharsets.UTF_8));
+            return ENCODER.encodeToString(Arrays.copyOf(digest, CREDENTIAL_VERSION_BYTES));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private byte[] sign(String signingInput) {
+        try {
+            // Mac is not thread-safe; a clone of the initialized prototype skips key setup
+            Mac mac = (Mac) prototype.clone();
+            return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException("HMAC-SHA256 provider does not support cloning", e);
+        }
+    }
+}
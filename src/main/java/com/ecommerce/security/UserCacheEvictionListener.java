@@ -0,0 +1,38 @@
+package com.ecommerce.security;
+
+import com.ecommerce.cache.NearCache;
+import com.ecommerce.model.User;
+import com.ecommerce.util.TransactionCallbacks;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Evicts a cached user when the entity is updated or deleted, so a deactivation, password or
+ * role change takes effect on the next request, for access tokens too, which are checked
+ * against the cached user. The user is evicted again after commit, in case a concurrent
+ * request reloaded the old row before the change was visible.
+ * <p>
+ * Other nodes, and bulk JPQL or SQL updates of {@code users}, bypass this listener; their
+ * changes are evicted by {@link UserCacheReconciler}.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCacheEvictionListener {
+
+    private final NearCache<String, UserDetails> userDetailsCache;
+
+    @PostUpdate
+    @PostRemove
+    public void onUserChanged(User user) {
+        String username = user.getUsername();
+        evict(username);
+        TransactionCallbacks.afterCommit(() -> evict(username));
+    }
+
+    void evict(String username) {
+        userDetailsCache.invalidate(username);
+    }
+}
@@ -0,0 +1,54 @@
+package com.ecommerce.security;
+
+import com.ecommerce.datasource.PrimaryReads;
+import com.ecommerce.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Evicts cached users changed on other nodes, or by statements that bypass
+ * {@link UserCacheEvictionListener}.
+ * <p>
+ * Every interval, the usernames of users whose {@code updated_at} is past the previous poll
+ * are read from the primary and evicted, so a deactivation, password or role change applies
+ * on every node within one interval of its commit. A write may commit up to the commit delay
+ * after it set the column, and node clocks may differ by as much, so each poll reaches back
+ * by the delay. A user deleted on another node leaves no row to poll and stays cached for up
+ * to the user cache TTL; deactivate users instead.
+ */
+@Component
+@Slf4j
+public class UserCacheReconciler {
+
+    private final UserRepository userRepository;
+    private final UserCacheEvictionListener evictionListener;
+    private final Duration commitDelay;
+
+    private LocalDateTime lastPoll = LocalDateTime.now();
+
+    public UserCacheReconciler(UserRepository userRepository,
+                               UserCacheEvictionListener evictionListener,
+                               @Value("${app.cache.user.reconcile.commit-delay:5s}") Duration commitDelay) {
+        this.userRepository = userRepository;
+        this.evictionListener = evictionListener;
+        this.commitDelay = commitDelay;
+    }
+
+    @Scheduled(fixedDelayString = "${app.cache.user.reconcile.interval-ms:1000}")
+    public void reconcile() {
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = lastPoll.minus(commitDelay);
+        List<String> changed = PrimaryReads.call(() -> userRepository.findUsernamesUpdatedAfter(since));
+        changed.forEach(evictionListener::evict);
+        lastPoll = started;
+        if (!changed.isEmpty()) {
+            log.debug("Evicted {} users changed since {}", changed.size(), since);
+        }
+    }
+}
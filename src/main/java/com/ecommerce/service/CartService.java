@@ -0,0 +1,16 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CartDTO;
+
+public interface CartService {
+
+    CartDTO getCart(String username);
+
+    CartDTO addItem(String username, Long productId, Integer quantity);
+
+    CartDTO updateItem(String username, Long productId, Integer quantity);
+
+    CartDTO removeItem(String username, Long productId);
+
+    void clearCart(String username);
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.service;
+
+import com.ecommerce.exception.BadRequestException;
+
+import java.util.Locale;
+
+/**
+ * Line-oriented formats accepted by the catalog import and produced by the catalog export.
+ */
+public enum CatalogFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    private final String mediaType;
+    private final String extension;
+
+    CatalogFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static CatalogFormat fromName(String name) {
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unsupported format: " + name);
+        }
+    }
+}
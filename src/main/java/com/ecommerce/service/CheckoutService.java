@@ -0,0 +1,8 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.OrderDTO;
+
+public interface CheckoutService {
+
+    OrderDTO checkout(String username);
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ProductExportService {
+
+    /**
+     * Writes every active product, or those of one category, to the output stream.
+     *
+     * @return the number of products written
+     */
+    long exportProducts(Long categoryId, CatalogFormat format, OutputStream output) throws IOException;
+}
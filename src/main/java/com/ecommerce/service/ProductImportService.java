@@ -0,0 +1,10 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.ImportReport;
+
+import java.io.InputStream;
+
+public interface ProductImportService {
+
+    ImportReport importProducts(InputStream input, CatalogFormat format);
+}
@@ -1,11 +1,17 @@
 package com.ecommerce.service;
 
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.FacetedPage;
 import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductFilter;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
 
@@ -17,15 +23,50 @@ public interface ProductService {
 
     ProductDTO getProductById(Long id);
 
+    /**
+     * Returns the products with the given ids by id, active or not, reading all that are not
+     * cached with one query. Ids of missing products are left out.
+     */
+    Map<Long, ProductDTO> getProductsByIds(Collection<Long> ids);
+
     Page<ProductDTO> getAllProducts(Pageable pageable);
 
     Page<ProductDTO> searchProducts(String keyword, Pageable pageable);
 
-    Page<ProductDTO> filterByPrice(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
+    /**
+     * Returns active products priced within the range, in the price order of the pageable's
+     * sort (ascending if unsorted).
+     *
+     * @param categoryId the category to filter by, or {@code null} for all categories
+     */
+    Page<ProductDTO> filterByPrice(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable);
 
     List<ProductDTO> getProductsByCategory(Long categoryId);
 
+    /**
+     * Returns a page of active products matching the filter, with counts per category, price
+     * range and stock state computed over all matches.
+     *
+     * @param inStock {@code true} or {@code false} to filter by stock state, {@code null} for both
+     * @param sortBy  {@code price} or {@code id}
+     */
+    FacetedPage<ProductDTO> facetedSearch(ProductFilter filter, Boolean inStock, String sortBy,
+                                          Sort.Direction direction, Pageable pageable);
+
+    /**
+     * Returns up to {@code size} active products after the cursor position.
+     *
+     * @param cursor    the {@code nextCursor} of the previous page, or {@code null} for the first page
+     * @param sortBy    {@code name}, {@code price} or {@code id}, or {@code null} for the cursor's
+     *                  order ({@code name} on the first page); must match the cursor if both are given
+     * @param direction the sort direction, or {@code null} as for {@code sortBy}
+     */
+    CursorPage<ProductDTO> scrollProducts(ProductFilter filter, String cursor, int size,
+                                          String sortBy, Sort.Direction direction);
+
     void decreaseStock(Long productId, Integer quantity);
 
     void increaseStock(Long productId, Integer quantity);
+
+    void reserveStock(Map<Long, Integer> quantities);
 }
@@ -0,0 +1,148 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.cart.CartStore;
+import com.ecommerce.cart.LongIntMap;
+import com.ecommerce.dto.CartDTO;
+import com.ecommerce.dto.CartLineDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.service.CartService;
+import com.ecommerce.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cart operations served from {@link CartStore}. Product details are read through the
+ * product cache, so a cart request normally touches no database, and at most one query
+ * loads the products that are not cached.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartServiceImpl implements CartService {
+
+    private static final int MAX_QUANTITY = 1000;
+
+    private final CartStore cartStore;
+    private final ProductService productService;
+
+    @Value("${app.cart.max-lines:100}")
+    private int maxLines;
+
+    @Override
+    public CartDTO getCart(String username) {
+        return toDTO(cartStore.read(username));
+    }
+
+    @Override
+    public CartDTO addItem(String username, Long productId, Integer quantity) {
+        if (log.isDebugEnabled()) {
+            log.debug("Adding {} x product {} to cart of user: {}", quantity, productId, username);
+        }
+        validateQuantity(quantity);
+        requireAvailable(productId);
+
+        LongIntMap items = cartStore.update(username, cart -> {
+            int updated = cart.get(productId) + quantity;
+            checkLine(cart, productId, updated);
+            cart.put(productId, updated);
+        });
+        return toDTO(items);
+    }
+
+    @Override
+    public CartDTO updateItem(String username, Long productId, Integer quantity) {
+        if (log.isDebugEnabled()) {
+            log.debug("Setting product {} to {} in cart of user: {}", productId, quantity, username);
+        }
+        if (quantity != null && quantity == 0) {
+            return removeItem(username, productId);
+        }
+        validateQuantity(quantity);
+        requireAvailable(productId);
+
+        LongIntMap items = cartStore.update(username, cart -> {
+            checkLine(cart, productId, quantity);
+            cart.put(productId, quantity);
+        });
+        return toDTO(items);
+    }
+
+    @Override
+    public CartDTO removeItem(String username, Long productId) {
+        log.debug("Removing product {} from cart of user: {}", productId, username);
+        return toDTO(cartStore.update(username, cart -> cart.remove(productId)));
+    }
+
+    @Override
+    public void clearCart(String username) {
+        log.debug("Clearing cart of user: {}", username);
+        cartStore.update(username, LongIntMap::clear);
+    }
+
+    private void checkLine(LongIntMap cart, Long productId, int quantity) {
+        if (quantity > MAX_QUANTITY) {
+            throw new BadRequestException("Quantity cannot exceed " + MAX_QUANTITY);
+        }
+        if (!cart.containsKey(productId) && cart.size() >= maxLines) {
+            throw new BadRequestException("Cart cannot hold more than " + maxLines + " products");
+        }
+    }
+
+    private void requireAvailable(Long productId) {
+        ProductDTO product = productService.getProductById(productId);
+        if (!Boolean.TRUE.equals(product.getIsActive())) {
+            throw new BadRequestException("Product is not available: " + product.getName());
+        }
+    }
+
+    private void validateQuantity(Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new BadRequestException("Quantity must be greater than 0");
+        }
+    }
+
+    private CartDTO toDTO(LongIntMap items) {
+        List<Long> productIds = new ArrayList<>(items.size());
+        items.forEach((productId, quantity) -> productIds.add(productId));
+        Map<Long, ProductDTO> products = productService.getProductsByIds(productIds);
+
+        List<CartLineDTO> lines = new ArrayList<>(items.size());
+        items.forEach((productId, quantity) -> {
+            ProductDTO product = products.get(productId);
+            if (product == null) {
+                // Deleted products drop out of the cart view
+                log.debug("Cart line refers to a missing product: {}", productId);
+                return;
+            }
+            lines.add(CartLineDTO.builder()
+                    .productId(productId)
+                    .productName(product.getName())
+                    .quantity(quantity)
+                    .unitPrice(product.getPrice())
+                    .productActive(product.getIsActive())
+                    .build());
+        });
+        lines.sort(Comparator.comparing(CartLineDTO::getProductId));
+
+        int totalQuantity = 0;
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        for (CartLineDTO line : lines) {
+            totalQuantity += line.getQuantity();
+            totalAmount = totalAmount.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+        }
+        return CartDTO.builder()
+                .items(lines)
+                .totalQuantity(totalQuantity)
+                .totalAmount(totalAmount)
+                .build();
+    }
+}
@@ -1,15 +1,21 @@
 package com.ecommerce.service.impl;
 
+import com.ecommerce.cache.NearCache;
+import com.ecommerce.datasource.PrimaryReads;
 import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.event.CategoryChangedEvent;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.mapper.CategoryMapper;
 import com.ecommerce.model.Category;
 import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
 import com.ecommerce.service.CategoryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -24,28 +30,35 @@ public class CategoryServiceImpl implements CategoryService {
     private static final String CATEGORY_RESOURCE = "Category";
     private static final String CATEGORY_ALREADY_EXISTS_MSG = "Category with name '%s' already exists";
     private static final String CATEGORY_WITH_PRODUCTS_MSG = "Cannot delete category with existing products";
+    private static final String ALL_CATEGORIES_KEY = "all";
 
     private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
+    private final ProductRepository productRepository;
+    private final CategoryMapper categoryMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NearCache<Long, CategoryDTO> categoryCache;
+    private final NearCache<String, List<CategoryDTO>> categoryListCache;
 
     @Override
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
-        log.info("Creating category: {}", categoryDTO.getName());
+        log.debug("Creating category: {}", categoryDTO.getName());
 
         if (categoryRepository.existsByNameIgnoreCase(categoryDTO.getName())) {
             throw new BadRequestException(String.format(CATEGORY_ALREADY_EXISTS_MSG, categoryDTO.getName()));
         }
 
-        Category category = modelMapper.map(categoryDTO, Category.class);
+        Category category = categoryMapper.toEntity(categoryDTO);
         Category savedCategory = categoryRepository.save(category);
 
-        log.info("Category created successfully with id: {}", savedCategory.getId());
-        return modelMapper.map(savedCategory, CategoryDTO.class);
+        log.debug("Category created successfully with id: {}", savedCategory.getId());
+        CategoryDTO created = categoryMapper.toDTO(savedCategory);
+        eventPublisher.publishEvent(CategoryChangedEvent.saved(created));
+        return created;
     }
 
     @Override
     public CategoryDTO updateCategory(Long id, CategoryDTO categoryDTO) {
-        log.info("Updating category with id: {}", id);
+        log.debug("Updating category with id: {}", id);
 
         Category category = getCategoryOrThrow(id);
 
@@ -54,16 +67,18 @@ public class CategoryServiceImpl implements CategoryService {
             throw new BadRequestException(String.format(CATEGORY_ALREADY_EXISTS_MSG, categoryDTO.getName()));
         }
 
-        modelMapper.map(categoryDTO, category);
+        categoryMapper.updateEntity(categoryDTO, category);
         Category updatedCategory = categoryRepository.save(category);
 
-        log.info("Category updated successfully with id: {}", id);
-        return modelMapper.map(updatedCategory, CategoryDTO.class);
+        log.debug("Category updated successfully with id: {}", id);
+        CategoryDTO updated = categoryMapper.toDTO(updatedCategory);
+        eventPublisher.publishEvent(CategoryChangedEvent.saved(updated));
+        return updated;
     }
 
     @Override
     public void deleteCategory(Long id) {
-        log.info("Deleting category with id: {}", id);
+        log.debug("Deleting category with id: {}", id);
 
         Category category = getCategoryOrThrow(id);
 
@@ -72,24 +87,25 @@ public class CategoryServiceImpl implements CategoryService {
         }
 
         categoryRepository.delete(category);
-        log.info("Category deleted successfully with id: {}", id);
+        eventPublisher.publishEvent(CategoryChangedEvent.deleted(id));
+        log.debug("Category deleted successfully with id: {}", id);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public CategoryDTO getCategoryById(Long id) {
-        log.info("Fetching category with id: {}", id);
-        Category category = getCategoryOrThrow(id);
-        return modelMapper.map(category, CategoryDTO.class);
+        log.debug("Fetching category with id: {}", id);
+        return categoryCache.get(id, key -> PrimaryReads.call(() -> categoryMapper.toDTO(getCategoryOrThrow(key))));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public List<CategoryDTO> getAllCategories() {
-        log.info("Fetching all categories");
-        return categoryRepository.findAll().stream()
-                .map(category -> modelMapper.map(category, CategoryDTO.class))
-                .collect(Collectors.toList());
+        log.debug("Fetching all categories");
+        return categoryListCache.get(ALL_CATEGORIES_KEY, key -> PrimaryReads.call(() -> categoryRepository.findAll()
+                .stream()
+                .map(categoryMapper::toDTO)
+                .collect(Collectors.toUnmodifiableList())));
     }
 
     /**
@@ -105,12 +121,12 @@ public class CategoryServiceImpl implements CategoryService {
     }
 
     /**
-     * Checks if a category has associated products.
+     * Checks if a category has associated products without loading them.
      *
      * @param category the category to check
      * @return true if category has products, false otherwise
      */
     private boolean hasCategoryProducts(Category category) {
-        return category.getProducts() != null && !category.getProducts().isEmpty();
+        return productRepository.existsByCategoryId(category.getId());
     }
 }
@@ -0,0 +1,119 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.cart.CartStore;
+import com.ecommerce.dto.OrderDTO;
+import com.ecommerce.dto.OrderItemDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.model.Order;
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.OrderRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.UserRepository;
+import com.ecommerce.service.CheckoutService;
+import com.ecommerce.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Turns a user's cart into an order with a fixed number of statements, whatever the size of
+ * the basket: one query for the products in the cart, one stock reservation for all lines,
+ * one order insert, one batched insert of the order items and one delete of the cart.
+ */
+@Service
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class CheckoutServiceImpl implements CheckoutService {
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_items (order_id, product_id, quantity, unit_price, total_price) VALUES (?, ?, ?, ?, ?)";
+
+    private final CartStore cartStore;
+    private final CartItemRepository cartItemRepository;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+    private final ProductService productService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public OrderDTO checkout(String username) {
+        log.debug("Checking out cart of user: {}", username);
+
+        // Keeps the cart from changing until this transaction completes. The cart store writes
+        // behind, so the lines come from it rather than from cart_items
+        CartStore.CheckoutCart cart = cartStore.beginCheckout(username);
+        if (cart.items().isEmpty()) {
+            throw new BadRequestException("Cart is empty");
+        }
+
+        // Sorted, so that concurrent checkouts reserve stock in the same order
+        Map<Long, Integer> quantities = new TreeMap<>();
+        cart.items().forEach(quantities::put);
+        Map<Long, ProductDTO> products = new HashMap<>();
+        for (ProductDTO product : productRepository.findDTOsByIdIn(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+
+        List<OrderItemDTO> items = new ArrayList<>(quantities.size());
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            ProductDTO product = products.get(line.getKey());
+            if (product == null || !Boolean.TRUE.equals(product.getIsActive())) {
+                throw new BadRequestException("Product is no longer available: "
+                        + (product != null ? product.getName() : line.getKey()));
+            }
+            BigDecimal lineTotal = product.getPrice().multiply(BigDecimal.valueOf(line.getValue()));
+            items.add(OrderItemDTO.builder()
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .quantity(line.getValue())
+                    .unitPrice(product.getPrice())
+                    .totalPrice(lineTotal)
+                    .build());
+            total = total.add(lineTotal);
+        }
+
+        productService.reserveStock(quantities);
+
+        long userId = cart.userId();
+        Order order = orderRepository.save(Order.builder()
+                .user(userRepository.getReferenceById(userId))
+                .totalAmount(total)
+                .status(Order.OrderStatus.PENDING)
+                .build());
+
+        List<Object[]> rows = new ArrayList<>(items.size());
+        for (OrderItemDTO item : items) {
+            rows.add(new Object[]{order.getId(), item.getProductId(), item.getQuantity(),
+                    item.getUnitPrice(), item.getTotalPrice()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, rows);
+
+        // A double submit waits for the cart in beginCheckout and then finds it empty
+        cartItemRepository.deleteAllByUserId(userId);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Order {} placed for user: {} with {} items", order.getId(), username, items.size());
+        }
+        return OrderDTO.builder()
+                .id(order.getId())
+                .userId(userId)
+                .totalAmount(total)
+                .status(order.getStatus().name())
+                .items(items)
+                .createdAt(order.getCreatedAt())
+                .build();
+    }
+}
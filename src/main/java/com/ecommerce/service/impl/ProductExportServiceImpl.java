@@ -0,0 +1,119 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CatalogFormat;
+import com.ecommerce.service.ProductExportService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes the catalog row by row from a database cursor straight to the output stream, so
+ * memory use does not grow with the size of the catalog.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductExportServiceImpl implements ProductExportService {
+
+    private static final String CSV_HEADER = "id,name,description,price,stockQuantity,categoryId,categoryName,isActive";
+
+    private final ProductRepository productRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportProducts(Long categoryId, CatalogFormat format, OutputStream output) throws IOException {
+        long started = System.currentTimeMillis();
+        long written;
+        try (Stream<ProductDTO> products = productRepository.streamActive(categoryId, fetchSize)) {
+            written = format == CatalogFormat.CSV
+                    ? writeCsv(products.iterator(), output)
+                    : writeNdjson(products.iterator(), output);
+        }
+        log.info("Exported {} products as {} in {} ms", written, format, System.currentTimeMillis() - started);
+        return written;
+    }
+
+    private long writeNdjson(Iterator<ProductDTO> products, OutputStream output) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(ProductDTO.class)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long written = 0;
+        // The generator must not close the response stream; the container owns it
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            while (products.hasNext()) {
+                writer.writeValue(generator, products.next());
+                written++;
+            }
+            if (written > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        return written;
+    }
+
+    private long writeCsv(Iterator<ProductDTO> products, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        long written = 0;
+        while (products.hasNext()) {
+            ProductDTO product = products.next();
+            writer.write(String.valueOf(product.getId()));
+            writer.write(',');
+            writeCsvField(writer, product.getName());
+            writer.write(',');
+            writeCsvField(writer, product.getDescription());
+            writer.write(',');
+            writer.write(product.getPrice().toPlainString());
+            writer.write(',');
+            writer.write(String.valueOf(product.getStockQuantity()));
+            writer.write(',');
+            writer.write(String.valueOf(product.getCategoryId()));
+            writer.write(',');
+            writeCsvField(writer, product.getCategoryName());
+            writer.write(',');
+            writer.write(String.valueOf(product.getIsActive()));
+            writer.write('\n');
+            written++;
+        }
+        writer.flush();
+        return written;
+    }
+
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,351 @@
+package com.ecommerce.service.impl;
+
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.dto.ImportReport;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.event.ProductsImportedEvent;
+import com.ecommerce.service.CatalogFormat;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductImportService;
+import com.ecommerce.util.CsvRecordReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streams NDJSON or CSV product rows into the catalog.
+ * <p>
+ * Rows are validated as they are read and written in chunks with one JDBC batch per chunk,
+ * each chunk in its own transaction. A chunk the database rejects is retried row by row,
+ * so one bad row only fails itself.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (name, description, price, stock_quantity, category_id, " +
+            "created_at, updated_at, catalog_updated_at, is_active) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryService categoryService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    @Override
+    public ImportReport importProducts(InputStream input, CatalogFormat format) {
+        long started = System.currentTimeMillis();
+        ImportRun run = new ImportRun(categoryService.getAllCategories());
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            if (format == CatalogFormat.CSV) {
+                readCsv(reader, run);
+            } else {
+                readNdjson(reader, run);
+            }
+        } catch (IOException e) {
+            log.warn("Product import stopped after {} rows: {}", run.received, e.getMessage());
+            run.error(run.lastLine, "Import stopped: " + e.getMessage());
+        }
+        run.flush();
+
+        long duration = System.currentTimeMillis() - started;
+        log.info("Imported {} of {} products in {} ms", run.imported, run.received, duration);
+        return ImportReport.builder()
+                .received(run.received)
+                .imported(run.imported)
+                .failed(run.failed)
+                .durationMs(duration)
+                .errors(run.errors)
+                .errorsTruncated(run.errorsTruncated)
+                .build();
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run) throws IOException {
+        String line;
+        long lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                run.add(lineNumber, objectMapper.readValue(line, ProductDTO.class));
+            } catch (JsonProcessingException e) {
+                run.reject(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(normalizeColumn(header.get(i)), i);
+        }
+
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            long line = csv.getRecordLine();
+            try {
+                run.add(line, toProduct(record, columns));
+            } catch (IllegalArgumentException e) {
+                run.reject(line, e.getMessage());
+            }
+        }
+    }
+
+    private ProductDTO toProduct(List<String> record, Map<String, Integer> columns) {
+        ProductDTO product = new ProductDTO();
+        product.setName(column(record, columns, "name", Function.identity()));
+        product.setDescription(column(record, columns, "description", Function.identity()));
+        product.setPrice(column(record, columns, "price", BigDecimal::new));
+        product.setStockQuantity(column(record, columns, "stockquantity", Integer::valueOf));
+        product.setCategoryId(column(record, columns, "categoryid", Long::valueOf));
+        product.setCategoryName(column(record, columns, "categoryname", Function.identity()));
+        product.setIsActive(column(record, columns, "isactive", ProductImportServiceImpl::parseBoolean));
+        return product;
+    }
+
+    private <T> T column(List<String> record, Map<String, Integer> columns, String name, Function<String, T> parser) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        if (value.isEmpty()) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    // Unlike Boolean.valueOf, which reads anything but "true" as false
+    private static Boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value)) {
+            return Boolean.TRUE;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return Boolean.FALSE;
+        }
+        throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+
+    private static String normalizeColumn(String column) {
+        return column.trim().toLowerCase(Locale.ROOT).replace("_", "").replace("-", "").replace(" ", "");
+    }
+
+    private record Row(long line, ProductDTO product) {
+    }
+
+    /**
+     * State of one import: the category lookup, the pending chunk and the running counts.
+     */
+    private final class ImportRun {
+
+        private final Map<Long, CategoryDTO> categoriesById;
+        private final Map<String, CategoryDTO> categoriesByName;
+        private final List<Row> chunk = new ArrayList<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long received;
+        private long imported;
+        private long failed;
+        private long lastLine;
+        private boolean errorsTruncated;
+
+        private ImportRun(List<CategoryDTO> categories) {
+            this.categoriesById = categories.stream()
+                    .collect(Collectors.toMap(CategoryDTO::getId, Function.identity()));
+            this.categoriesByName = categories.stream()
+                    .collect(Collectors.toMap(category -> category.getName().toLowerCase(Locale.ROOT),
+                            Function.identity(), (first, second) -> first));
+        }
+
+        private void add(long line, ProductDTO product) {
+            received++;
+            lastLine = line;
+            product.setId(null);
+            if (product.getStockQuantity() == null) {
+                product.setStockQuantity(0);
+            }
+            if (product.getIsActive() == null) {
+                product.setIsActive(true);
+            }
+
+            String problem = resolveCategory(product);
+            if (problem == null) {
+                problem = validate(product);
+            }
+            if (problem != null) {
+                failed++;
+                error(line, problem);
+                return;
+            }
+
+            chunk.add(new Row(line, product));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void reject(long line, String message) {
+            received++;
+            lastLine = line;
+            failed++;
+            error(line, message);
+        }
+
+        private void error(long line, String message) {
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new ImportReport.RowError(line, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        private String resolveCategory(ProductDTO product) {
+            CategoryDTO category;
+            if (product.getCategoryId() != null) {
+                category = categoriesById.get(product.getCategoryId());
+                if (category == null) {
+                    return "Category not found with id: " + product.getCategoryId();
+                }
+            } else if (product.getCategoryName() != null) {
+                category = categoriesByName.get(product.getCategoryName().trim().toLowerCase(Locale.ROOT));
+                if (category == null) {
+                    return "Category not found with name: " + product.getCategoryName();
+                }
+            } else {
+                return null;
+            }
+            product.setCategoryId(category.getId());
+            product.setCategoryName(category.getName());
+            return null;
+        }
+
+        private String validate(ProductDTO product) {
+            Set<ConstraintViolation<ProductDTO>> violations = validator.validate(product);
+            if (violations.isEmpty()) {
+                return null;
+            }
+            return violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            List<Row> rows = List.copyOf(chunk);
+            chunk.clear();
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(rows));
+                imported += rows.size();
+            } catch (DataAccessException e) {
+                log.warn("Import batch of {} rows failed, retrying row by row: {}",
+                        rows.size(), e.getMostSpecificCause().getMessage());
+                for (Row row : rows) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> insert(List.of(row)));
+                        imported++;
+                    } catch (DataAccessException rowFailure) {
+                        failed++;
+                        error(row.line(), rowFailure.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private void insert(List<Row> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[]{"id"})) {
+                for (Row row : rows) {
+                    ProductDTO product = row.product();
+                    statement.setString(1, product.getName());
+                    statement.setString(2, product.getDescription());
+                    statement.setBigDecimal(3, product.getPrice());
+                    statement.setInt(4, product.getStockQuantity());
+                    statement.setLong(5, product.getCategoryId());
+                    statement.setTimestamp(6, now);
+                    statement.setTimestamp(7, now);
+                    statement.setTimestamp(8, now);
+                    statement.setBoolean(9, product.getIsActive());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+
+                List<Long> generated = new ArrayList<>(rows.size());
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        generated.add(keys.getLong(1));
+                    }
+                }
+                return generated;
+            }
+        });
+
+        if (ids == null || ids.size() != rows.size()) {
+            // A DataAccessException, so that the transaction rolls back and the chunk is retried row by row
+            throw new DataRetrievalFailureException("Expected " + rows.size() + " generated ids from import batch, got "
+                    + (ids == null ? 0 : ids.size()));
+        }
+        List<ProductDTO> products = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            ProductDTO product = rows.get(i).product();
+            product.setId(ids.get(i));
+            products.add(product);
+        }
+        eventPublisher.publishEvent(new ProductsImportedEvent(products));
+    }
+}
@@ -1,23 +1,50 @@
 package com.ecommerce.service.impl;
 
+import com.ecommerce.cache.NearCache;
+import com.ecommerce.datasource.PrimaryReads;
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.dto.CursorPage;
+import com.ecommerce.dto.FacetedPage;
+import com.ecommerce.dto.PageDTO;
+import com.ecommerce.dto.ProductCursor;
 import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.dto.ProductFacets;
+import com.ecommerce.dto.ProductFilter;
+import com.ecommerce.event.ProductChangedEvent;
+import com.ecommerce.event.StockChangedEvent;
 import com.ecommerce.exception.BadRequestException;
 import com.ecommerce.exception.ResourceNotFoundException;
+import com.ecommerce.exception.ServiceUnavailableException;
+import com.ecommerce.inventory.InventoryLedger;
+import com.ecommerce.mapper.ProductMapper;
 import com.ecommerce.model.Category;
 import com.ecommerce.model.Product;
 import com.ecommerce.repository.CategoryRepository;
 import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.search.ProductFacetIndex;
+import com.ecommerce.search.ProductPriceIndex;
+import com.ecommerce.search.ProductSearchIndex;
+import com.ecommerce.service.CategoryService;
 import com.ecommerce.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,29 +53,41 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProductServiceImpl implements ProductService {
 
+    private static final int MAX_SCROLL_SIZE = 100;
+    private static final String DEFAULT_SCROLL_SORT = "name";
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
-    private final ModelMapper modelMapper;
+    private final InventoryLedger inventoryLedger;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductPriceIndex productPriceIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final CategoryService categoryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductMapper productMapper;
+    private final NearCache<Long, ProductDTO> productCache;
 
     @Override
     public ProductDTO createProduct(ProductDTO productDTO) {
-        log.info("Creating product: {}", productDTO.getName());
+        log.debug("Creating product: {}", productDTO.getName());
 
         Category category = categoryRepository.findById(productDTO.getCategoryId())
                 .orElseThrow(() -> ResourceNotFoundException.withId("Category", productDTO.getCategoryId()));
 
-        Product product = modelMapper.map(productDTO, Product.class);
+        Product product = productMapper.toEntity(productDTO);
         product.setCategory(category);
 
         Product savedProduct = productRepository.save(product);
-        log.info("Product created successfully with id: {}", savedProduct.getId());
+        log.debug("Product created successfully with id: {}", savedProduct.getId());
 
-        return mapToDTO(savedProduct);
+        ProductDTO created = productMapper.toDTO(savedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(created));
+        return created;
     }
 
     @Override
     public ProductDTO updateProduct(Long id, ProductDTO productDTO) {
-        log.info("Updating product with id: {}", id);
+        log.debug("Updating product with id: {}", id);
 
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> ResourceNotFoundException.withId("Product", id));
@@ -59,117 +98,279 @@ public class ProductServiceImpl implements ProductService {
             product.setCategory(category);
         }
 
-        modelMapper.map(productDTO, product);
+        productMapper.updateEntity(productDTO, product);
         Product updatedProduct = productRepository.save(product);
+        // Stock is not saved with the entity; a PUT without it leaves concurrent sales intact
+        if (productDTO.getStockQuantity() != null) {
+            productRepository.setStock(id, productDTO.getStockQuantity());
+            updatedProduct.setStockQuantity(productDTO.getStockQuantity());
+        }
 
-        log.info("Product updated successfully with id: {}", id);
-        return mapToDTO(updatedProduct);
+        log.debug("Product updated successfully with id: {}", id);
+        ProductDTO updated = productMapper.toDTO(updatedProduct);
+        eventPublisher.publishEvent(ProductChangedEvent.saved(updated));
+        return updated;
     }
 
     @Override
     public void deleteProduct(Long id) {
-        log.info("Deleting product with id: {}", id);
+        log.debug("Deleting product with id: {}", id);
 
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> ResourceNotFoundException.withId("Product", id));
 
         productRepository.delete(product);
-        log.info("Product deleted successfully with id: {}", id);
+        eventPublisher.publishEvent(ProductChangedEvent.deleted(id));
+        log.debug("Product deleted successfully with id: {}", id);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public ProductDTO getProductById(Long id) {
-        log.info("Fetching product with id: {}", id);
+        log.debug("Fetching product with id: {}", id);
 
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> ResourceNotFoundException.withId("Product", id));
+        return productCache.get(id, this::loadProduct);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Map<Long, ProductDTO> getProductsByIds(Collection<Long> ids) {
+        log.debug("Fetching {} products by id", ids.size());
 
-        return mapToDTO(product);
+        return productCache.getAll(ids, this::loadProducts, id -> ResourceNotFoundException.withId("Product", id));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<ProductDTO> getAllProducts(Pageable pageable) {
-        log.info("Fetching all active products, page: {}", pageable.getPageNumber());
+        log.debug("Fetching all active products, page: {}", pageable.getPageNumber());
 
-        return productRepository.findByIsActiveTrue(pageable)
-                .map(this::mapToDTO);
+        return productRepository.findActiveDTOs(pageable);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
     public Page<ProductDTO> searchProducts(String keyword, Pageable pageable) {
-        log.info("Searching products with keyword: {}", keyword);
+        log.debug("Searching products with keyword: {}", keyword);
 
-        return productRepository.findByNameContainingIgnoreCaseAndIsActiveTrue(keyword, pageable)
-                .map(this::mapToDTO);
+        if (keyword.isBlank()) {
+            // Every product matches an empty search, as with the LIKE query below
+            return productRepository.findActiveDTOs(
+                    PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("id")));
+        }
+        // A keyword of stop words only has no terms in the index, but may still match names
+        if (productSearchIndex.isReady() && productSearchIndex.hasTerms(keyword)) {
+            Page<Long> ids = productSearchIndex.searchIds(keyword, pageable);
+            return new PageImpl<>(loadActive(ids.getContent()), pageable, ids.getTotalElements());
+        }
+
+        return productRepository.findActiveDTOsByNameContaining(keyword, pageable);
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Page<ProductDTO> filterByPrice(BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
-        log.info("Filtering products by price range: {} - {}", minPrice, maxPrice);
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public Page<ProductDTO> filterByPrice(Long categoryId, BigDecimal minPrice, BigDecimal maxPrice, Pageable pageable) {
+        log.debug("Filtering products by price range: {} - {}", minPrice, maxPrice);
 
         if (minPrice.compareTo(maxPrice) > 0) {
             throw new BadRequestException("Minimum price cannot be greater than maximum price");
         }
 
-        return productRepository.findByPriceBetweenAndIsActiveTrue(minPrice, maxPrice, pageable)
-                .map(this::mapToDTO);
+        if (productPriceIndex.isReady()) {
+            Sort.Order priceOrder = pageable.getSort().getOrderFor("price");
+            Sort.Direction direction = priceOrder != null ? priceOrder.getDirection() : Sort.Direction.ASC;
+            Page<Long> ids = productPriceIndex.findIds(categoryId, minPrice, maxPrice, direction, pageable);
+            return new PageImpl<>(loadActive(ids.getContent()), pageable, ids.getTotalElements());
+        }
+
+        Pageable byPrice = pageable.getSort().isSorted()
+                ? pageable
+                : PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("price", "id"));
+        return productRepository.findActiveDTOsByPriceBetween(categoryId, minPrice, maxPrice, byPrice);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> getProductsByCategory(Long categoryId) {
-        log.info("Fetching products for category id: {}", categoryId);
+        log.debug("Fetching products for category id: {}", categoryId);
 
         // Verify category exists
         if (!categoryRepository.existsById(categoryId)) {
             throw ResourceNotFoundException.withId("Category", categoryId);
         }
 
-        return productRepository.findByCategoryIdAndIsActiveTrue(categoryId).stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return productRepository.findActiveDTOsByCategoryId(categoryId);
+    }
+
+    @Override
+    @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+    public FacetedPage<ProductDTO> facetedSearch(ProductFilter filter, Boolean inStock, String sortBy,
+                                                 Sort.Direction direction, Pageable pageable) {
+        log.debug("Faceted search, keyword: {}, category: {}", filter.getKeyword(), filter.getCategoryId());
+
+        boolean hasKeyword = filter.getKeyword() != null && !filter.getKeyword().isBlank();
+        if (!productFacetIndex.isReady() || hasKeyword && !productSearchIndex.isReady()) {
+            throw new ServiceUnavailableException("Product facets are loading, please retry shortly");
+        }
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0) {
+            throw new BadRequestException("Minimum price cannot be greater than maximum price");
+        }
+
+        ProductFacetIndex.Result result = productFacetIndex.query(filter, inStock, sortBy, direction, pageable);
+        Page<Long> ids = result.ids();
+        ProductFacets facets = result.facets();
+
+        Map<Long, String> categoryNames = categoryService.getAllCategories().stream()
+                .collect(Collectors.toMap(CategoryDTO::getId, CategoryDTO::getName));
+        facets.getCategories().forEach(count -> count.setCategoryName(categoryNames.get(count.getCategoryId())));
+
+        Page<ProductDTO> products = new PageImpl<>(loadActive(ids.getContent()), pageable, ids.getTotalElements());
+        return FacetedPage.<ProductDTO>builder()
+                .results(PageDTO.from(products))
+                .facets(facets)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductDTO> scrollProducts(ProductFilter filter, String cursor, int size,
+                                                 String sortBy, Sort.Direction direction) {
+        log.debug("Scrolling products, size: {}, first page: {}", size, cursor == null);
+
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new BadRequestException("Size must be between 1 and " + MAX_SCROLL_SIZE);
+        }
+        if (filter.getMinPrice() != null && filter.getMaxPrice() != null
+                && filter.getMinPrice().compareTo(filter.getMaxPrice()) > 0) {
+            throw new BadRequestException("Minimum price cannot be greater than maximum price");
+        }
+
+        ProductCursor position;
+        if (cursor == null) {
+            position = ProductCursor.first(sortBy != null ? sortBy : DEFAULT_SCROLL_SORT,
+                    direction != null ? direction : Sort.Direction.ASC);
+        } else {
+            position = ProductCursor.decode(cursor);
+            // The cursor carries its order; a different one would skip or repeat rows
+            if (sortBy != null && ProductCursor.SortKey.from(sortBy) != position.sortKey()
+                    || direction != null && direction != position.direction()) {
+                throw new BadRequestException("sortBy and direction must match the cursor, or be omitted");
+            }
+        }
+        Slice<ProductDTO> slice = productRepository.findActiveSlice(filter, position, size);
+
+        String nextCursor = slice.hasNext()
+                ? position.after(slice.getContent().get(slice.getNumberOfElements() - 1)).encode()
+                : null;
+
+        return CursorPage.<ProductDTO>builder()
+                .content(slice.getContent())
+                .size(slice.getNumberOfElements())
+                .hasNext(slice.hasNext())
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Override
     public void decreaseStock(Long productId, Integer quantity) {
-        log.info("Decreasing stock for product id: {} by quantity: {}", productId, quantity);
+        log.debug("Decreasing stock for product id: {} by quantity: {}", productId, quantity);
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> ResourceNotFoundException.withId("Product", productId));
+        validateQuantity(quantity);
 
-        if (product.getStockQuantity() < quantity) {
+        boolean decreased = inventoryLedger.isEnabled()
+                ? inventoryLedger.tryDecrement(productId, quantity)
+                : productRepository.decrementStock(productId, quantity) > 0;
+
+        if (!decreased) {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> ResourceNotFoundException.withId("Product", productId));
             throw new BadRequestException("Insufficient stock for product: " + product.getName());
         }
 
-        product.setStockQuantity(product.getStockQuantity() - quantity);
-        productRepository.save(product);
-
-        log.info("Stock decreased successfully. New quantity: {}", product.getStockQuantity());
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(productId)));
+        log.debug("Stock decreased successfully for product id: {}", productId);
     }
 
     @Override
     public void increaseStock(Long productId, Integer quantity) {
-        log.info("Increasing stock for product id: {} by quantity: {}", productId, quantity);
+        log.debug("Increasing stock for product id: {} by quantity: {}", productId, quantity);
+
+        validateQuantity(quantity);
+
+        if (inventoryLedger.isEnabled()) {
+            if (!productRepository.existsById(productId)) {
+                throw ResourceNotFoundException.withId("Product", productId);
+            }
+            inventoryLedger.increment(productId, quantity);
+        } else if (productRepository.incrementStock(productId, quantity) == 0) {
+            throw ResourceNotFoundException.withId("Product", productId);
+        }
+
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(productId)));
+        log.debug("Stock increased successfully for product id: {}", productId);
+    }
 
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> ResourceNotFoundException.withId("Product", productId));
+    @Override
+    public void reserveStock(Map<Long, Integer> quantities) {
+        log.debug("Reserving stock for {} products", quantities.size());
 
-        product.setStockQuantity(product.getStockQuantity() + quantity);
-        productRepository.save(product);
+        if (quantities.isEmpty()) {
+            return;
+        }
+        quantities.values().forEach(this::validateQuantity);
+
+        if (inventoryLedger.isEnabled()) {
+            if (!inventoryLedger.tryDecrementAll(quantities)) {
+                throw new BadRequestException("Insufficient stock for one or more products in the order");
+            }
+            eventPublisher.publishEvent(new StockChangedEvent(List.copyOf(quantities.keySet())));
+            return;
+        }
+
+        Map<Long, Integer> updated = productRepository.decrementStockBatch(quantities);
+        updated.forEach((productId, count) -> {
+            if (count != 1) {
+                // Throwing rolls back the rows already decremented by the same batch
+                throw new BadRequestException("Insufficient stock for product with id: " + productId);
+            }
+        });
+
+        eventPublisher.publishEvent(new StockChangedEvent(List.copyOf(quantities.keySet())));
+        log.debug("Stock reserved successfully for {} products", updated.size());
+    }
 
-        log.info("Stock increased successfully. New quantity: {}", product.getStockQuantity());
+    /**
+     * Returns the active products with the given ids from the product cache, loading the
+     * missing ones in one statement, and keeping the order of the ids.
+     */
+    private List<ProductDTO> loadActive(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductDTO> products = productCache.getAll(ids, this::loadProducts,
+                id -> ResourceNotFoundException.withId("Product", id));
+        return ids.stream()
+                .map(products::get)
+                .filter(product -> product != null && Boolean.TRUE.equals(product.getIsActive()))
+                .toList();
+    }
+
+    // Cache loads read from the primary, so that a lagging replica cannot refill the cache
+    // with a product as it was before its last change
+    private Map<Long, ProductDTO> loadProducts(Set<Long> ids) {
+        return PrimaryReads.call(() -> productRepository.findDTOsByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity())));
+    }
+
+    private ProductDTO loadProduct(Long id) {
+        return PrimaryReads.call(() -> productRepository.findDTOById(id))
+                .orElseThrow(() -> ResourceNotFoundException.withId("Product", id));
     }
 
-    private ProductDTO mapToDTO(Product product) {
-        ProductDTO dto = modelMapper.map(product, ProductDTO.class);
-        if (product.getCategory() != null) {
-            dto.setCategoryId(product.getCategory().getId());
-            dto.setCategoryName(product.getCategory().getName());
+    private void validateQuantity(Integer quantity) {
+        if (quantity == null || quantity <= 0) {
+            throw new BadRequestException("Quantity must be greater than 0");
         }
-        return dto;
     }
 }
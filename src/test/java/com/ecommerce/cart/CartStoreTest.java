@@ -0,0 +1,93 @@
+package com.ecommerce.cart;
+
+import com.ecommerce.repository.CartItemRepository;
+import com.ecommerce.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Races evictions against a flush whose write has not committed yet. The store holds one cart,
+ * so loading a second one tries to evict the first.
+ */
+class CartStoreTest {
+
+    private static final long PRODUCT_ID = 7L;
+
+    private final CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CountDownLatch writing = new CountDownLatch(1);
+    private final CountDownLatch commit = new CountDownLatch(1);
+
+    private CartStore cartStore;
+
+    @BeforeEach
+    void setUp() {
+        // cart_items stays empty, as it is until the flush commits
+        when(cartItemRepository.findCartLines(anyString())).thenReturn(List.of());
+        when(userRepository.findIdByUsername("alice")).thenReturn(Optional.of(1L));
+        when(userRepository.findIdByUsername("bob")).thenReturn(Optional.of(2L));
+        cartStore = new CartStore(cartItemRepository, userRepository, jdbcTemplate,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), 1, Duration.ZERO);
+    }
+
+    @Test
+    void cartIsNotEvictedWhileItsFlushIsInProgress() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            assertThat(commit.await(10, TimeUnit.SECONDS)).isTrue();
+            return new int[0];
+        });
+        cartStore.update("alice", items -> items.put(PRODUCT_ID, 2));
+
+        Thread flusher = new Thread(cartStore::flush);
+        flusher.start();
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+
+        cartStore.read("bob");
+        assertThat(cartStore.read("alice").get(PRODUCT_ID)).isEqualTo(2);
+
+        commit.countDown();
+        flusher.join(10_000);
+        verify(cartItemRepository, times(1)).findCartLines("alice");
+    }
+
+    @Test
+    void cartIsKeptWhenItsFlushFails() throws Exception {
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            assertThat(commit.await(10, TimeUnit.SECONDS)).isTrue();
+            throw new IllegalStateException("connection lost");
+        });
+        cartStore.update("alice", items -> items.put(PRODUCT_ID, 2));
+
+        Thread flusher = new Thread(cartStore::flush);
+        flusher.start();
+        assertThat(writing.await(10, TimeUnit.SECONDS)).isTrue();
+        cartStore.read("bob");
+        commit.countDown();
+        flusher.join(10_000);
+
+        // The failed cart is dirty again, so neither the flush nor another load drops it
+        cartStore.read("bob");
+        assertThat(cartStore.read("alice").get(PRODUCT_ID)).isEqualTo(2);
+        verify(cartItemRepository, times(1)).findCartLines("alice");
+    }
+}
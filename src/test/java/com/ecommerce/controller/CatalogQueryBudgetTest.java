@@ -0,0 +1,244 @@
+package com.ecommerce.controller;
+
+import com.ecommerce.cache.CatalogCacheInvalidator;
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.metrics.RequestQueryMetricsFilter;
+import com.ecommerce.repository.CategoryRepository;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Calls the catalog endpoints under the {@code test} profile, where a request that executes
+ * more statements than its {@link com.ecommerce.metrics.QueryBudget} fails with 500. A new
+ * N+1 query in any of these endpoints therefore fails the build.
+ * <p>
+ * The catalog is written through the services, so the in-memory indexes, which load before
+ * any test runs, pick it up from the change events as they would in production. Endpoints
+ * served from an index are checked to return products and to have run the statement that
+ * loads them.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@WithMockUser
+class CatalogQueryBudgetTest {
+
+    private static final int PRODUCTS = 25;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CatalogCacheInvalidator catalogCacheInvalidator;
+
+    private CategoryDTO category;
+    private ProductDTO product;
+
+    @BeforeEach
+    void seedCatalog() {
+        productRepository.findAll().forEach(existing -> productService.deleteProduct(existing.getId()));
+        categoryRepository.findAll().forEach(existing -> categoryService.deleteCategory(existing.getId()));
+
+        category = categoryService.createCategory(CategoryDTO.builder()
+                .name("Electronics")
+                .description("Electronic devices")
+                .build());
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductDTO created = productService.createProduct(ProductDTO.builder()
+                    .name("Wireless Headphones " + i)
+                    .description("Over-ear wireless headphones, model " + i)
+                    .price(BigDecimal.valueOf(50 + i))
+                    .stockQuantity(i % 5)
+                    .categoryId(category.getId())
+                    .isActive(true)
+                    .build());
+            if (i == 0) {
+                product = created;
+            }
+        }
+    }
+
+    @Test
+    void listsProducts() throws Exception {
+        mockMvc.perform(get("/v1/products").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(20));
+    }
+
+    @Test
+    void listsProductsInBinaryFormats() throws Exception {
+        for (JsonFactory factory : List.of(new SmileFactory(), new CBORFactory())) {
+            String mediaType = factory instanceof SmileFactory ? "application/x-jackson-smile" : "application/cbor";
+            byte[] body = mockMvc.perform(get("/v1/products").param("size", "20").accept(mediaType))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(mediaType))
+                    .andReturn().getResponse().getContentAsByteArray();
+            JsonNode page = new ObjectMapper(factory).readTree(body);
+            assertThat(page.get("content")).hasSize(20);
+        }
+    }
+
+    @Test
+    void scrollsProducts() throws Exception {
+        mockMvc.perform(get("/v1/products/scroll").param("size", "20"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getsProduct() throws Exception {
+        mockMvc.perform(get("/v1/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(product.getId()));
+    }
+
+    @Test
+    void revalidatesCachedProductWithoutQuery() throws Exception {
+        catalogCacheInvalidator.reconcile();
+        String eTag = mockMvc.perform(get("/v1/products/{id}", product.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).isNotNull();
+
+        double before = statementsOf("/v1/products/{id}");
+        mockMvc.perform(get("/v1/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        assertThat(statementsOf("/v1/products/{id}") - before).isZero();
+    }
+
+    @Test
+    void searchesProducts() throws Exception {
+        double before = statementsOf("/v1/products/search");
+        mockMvc.perform(get("/v1/products/search").param("keyword", "headphones").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(20))
+                .andExpect(jsonPath("$.totalElements").value(PRODUCTS));
+        assertThat(statementsOf("/v1/products/search") - before).isPositive();
+    }
+
+    @Test
+    void repeatedSearchIsServedFromProductCache() throws Exception {
+        // Evicts the products just seeded, which a scheduled poll would do while measuring
+        catalogCacheInvalidator.reconcile();
+        mockMvc.perform(get("/v1/products/search").param("keyword", "headphones").param("size", "20"))
+                .andExpect(status().isOk());
+        double before = statementsOf("/v1/products/search");
+        mockMvc.perform(get("/v1/products/search").param("keyword", "headphones").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(20));
+        assertThat(statementsOf("/v1/products/search") - before).isZero();
+    }
+
+    @Test
+    void searchesStopWordsLikeDatabase() throws Exception {
+        // "on" is a stop word, and part of every name
+        mockMvc.perform(get("/v1/products/search").param("keyword", "on").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(PRODUCTS));
+    }
+
+    @Test
+    void filtersProductsByPrice() throws Exception {
+        double before = statementsOf("/v1/products/filter/price");
+        mockMvc.perform(get("/v1/products/filter/price")
+                        .param("minPrice", "55")
+                        .param("maxPrice", "70")
+                        .param("categoryId", category.getId().toString())
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(16))
+                .andExpect(jsonPath("$.content[0].price").value(55));
+        assertThat(statementsOf("/v1/products/filter/price") - before).isPositive();
+    }
+
+    @Test
+    void searchesProductsByFacets() throws Exception {
+        double before = statementsOf("/v1/products/facets");
+        mockMvc.perform(get("/v1/products/facets")
+                        .param("categoryId", category.getId().toString())
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results.content.length()").value(20))
+                .andExpect(jsonPath("$.results.totalElements").value(PRODUCTS))
+                .andExpect(jsonPath("$.facets.inStock").value(20))
+                .andExpect(jsonPath("$.facets.outOfStock").value(5));
+        assertThat(statementsOf("/v1/products/facets") - before).isPositive();
+    }
+
+    @Test
+    void listsProductsOfCategory() throws Exception {
+        mockMvc.perform(get("/v1/products/category/{categoryId}", category.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(PRODUCTS));
+    }
+
+    @Test
+    void exportsProducts() throws Exception {
+        mockMvc.perform(get("/v1/products/export").param("categoryId", category.getId().toString()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void listsCategories() throws Exception {
+        mockMvc.perform(get("/v1/categories"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void getsCategory() throws Exception {
+        mockMvc.perform(get("/v1/categories/{id}", category.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Electronics"));
+    }
+
+    /**
+     * Returns the statements executed so far by requests to the endpoint pattern.
+     */
+    private double statementsOf(String uri) {
+        DistributionSummary summary = meterRegistry.find(RequestQueryMetricsFilter.STATEMENTS_METRIC)
+                .tag("uri", uri)
+                .summary();
+        return summary != null ? summary.totalAmount() : 0;
+    }
+}
@@ -0,0 +1,106 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.repository.ProductRepository;
+import com.ecommerce.repository.StockLeaseRepository;
+import com.ecommerce.repository.StockSaleRepository;
+import com.ecommerce.service.CategoryService;
+import com.ecommerce.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sells through the ledger of one node, which then stops between two flushes without
+ * returning its leases. Recovering its leases must return only the units it did not sell, so
+ * that the units sold across both nodes never exceed the initial stock.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ecommerce_ledger_test;DB_CLOSE_DELAY=-1",
+        "app.inventory.ledger.enabled=true",
+        "app.inventory.ledger.node-id=test-node",
+        "app.inventory.ledger.block-size=10",
+        "app.inventory.ledger.flush-interval-ms=3600000"
+})
+@ActiveProfiles("test")
+class InventoryLedgerRecoveryTest {
+
+    private static final int INITIAL_STOCK = 100;
+    private static final int SOLD_BEFORE_CRASH = 15;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private StockLeaseRepository stockLeaseRepository;
+
+    @Autowired
+    private StockSaleRepository stockSaleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void recoveryAfterCrashBetweenFlushesNeverResells() {
+        Long productId = createProduct("Recovered Widget");
+
+        for (int i = 0; i < SOLD_BEFORE_CRASH; i++) {
+            productService.decreaseStock(productId, 1);
+        }
+        // Two blocks of ten were claimed, and no flush has run since
+        assertThat(stockOf(productId)).isEqualTo(INITIAL_STOCK - 20);
+
+        // test-node is taken to have crashed; another node recovers its leases
+        InventoryLedger other = new InventoryLedger(productRepository, stockLeaseRepository,
+                stockSaleRepository, jdbcTemplate, transactionManager, true, "other-node", 10, 30000);
+        assertThat(other.returnLeases("test-node")).isEqualTo(20 - SOLD_BEFORE_CRASH);
+        assertThat(stockOf(productId)).isEqualTo(INITIAL_STOCK - SOLD_BEFORE_CRASH);
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int soldAfterCrash = 0;
+        while (Boolean.TRUE.equals(transactionTemplate.execute(status -> other.tryDecrement(productId, 1)))) {
+            soldAfterCrash++;
+        }
+        other.shutdown();
+
+        assertThat(SOLD_BEFORE_CRASH + soldAfterCrash).isEqualTo(INITIAL_STOCK);
+        assertThat(stockOf(productId)).isZero();
+    }
+
+    private Long createProduct(String name) {
+        CategoryDTO category = categoryService.createCategory(CategoryDTO.builder()
+                .name("Ledger Test " + System.nanoTime())
+                .description("Products sold through the inventory ledger")
+                .build());
+        ProductDTO product = productService.createProduct(ProductDTO.builder()
+                .name(name + " " + System.nanoTime())
+                .description("Sold before and after a crash")
+                .price(new BigDecimal("9.99"))
+                .stockQuantity(INITIAL_STOCK)
+                .categoryId(category.getId())
+                .build());
+        return product.getId();
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+}
@@ -0,0 +1,135 @@
+package com.ecommerce.service;
+
+import com.ecommerce.dto.CategoryDTO;
+import com.ecommerce.dto.ProductDTO;
+import com.ecommerce.exception.BadRequestException;
+import com.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sells more units than are in stock from many threads at once. Every sale must be backed by
+ * a unit taken from {@code products.stock_quantity}: stock never goes negative, and the units
+ * sold equal the units the stock went down by.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ProductStockConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 25;
+    private static final int INITIAL_STOCK = 100;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    private CategoryDTO category;
+
+    @BeforeEach
+    void createCategory() {
+        category = categoryService.createCategory(CategoryDTO.builder()
+                .name("Stock Test " + System.nanoTime())
+                .description("Products sold concurrently")
+                .build());
+    }
+
+    @Test
+    void concurrentSalesNeverOversell() throws Exception {
+        Long productId = createProduct("Concurrent Widget");
+
+        int sold = runConcurrently(() -> {
+            productService.decreaseStock(productId, 1);
+            return 1;
+        });
+
+        int remaining = stockOf(productId);
+        assertThat(remaining).isGreaterThanOrEqualTo(0);
+        assertThat(sold).isEqualTo(INITIAL_STOCK - remaining);
+        assertThat(remaining).isZero();
+    }
+
+    @Test
+    void concurrentBasketsNeverOversell() throws Exception {
+        Long single = createProduct("Concurrent Lamp");
+        Long pair = createProduct("Concurrent Bulb");
+
+        int baskets = runConcurrently(() -> {
+            productService.reserveStock(Map.of(single, 1, pair, 2));
+            return 1;
+        });
+
+        int singleRemaining = stockOf(single);
+        int pairRemaining = stockOf(pair);
+        assertThat(singleRemaining).isGreaterThanOrEqualTo(0);
+        assertThat(pairRemaining).isGreaterThanOrEqualTo(0);
+        assertThat(baskets).isEqualTo(INITIAL_STOCK - singleRemaining);
+        assertThat(baskets * 2).isEqualTo(INITIAL_STOCK - pairRemaining);
+        assertThat(pairRemaining).isLessThan(2);
+    }
+
+    private Long createProduct(String name) {
+        return productService.createProduct(ProductDTO.builder()
+                .name(name)
+                .description(name + " for the stock concurrency test")
+                .price(BigDecimal.TEN)
+                .stockQuantity(INITIAL_STOCK)
+                .categoryId(category.getId())
+                .build()).getId();
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStockQuantity();
+    }
+
+    /**
+     * Runs the sale from every thread until each has made its attempts, and returns the number
+     * of sales that went through. A sale rejected for lack of stock does not count.
+     */
+    private static int runConcurrently(Callable<Integer> sale) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    int succeeded = 0;
+                    for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                        try {
+                            succeeded += sale.call();
+                        } catch (BadRequestException e) {
+                            // Out of stock
+                        }
+                    }
+                    return succeeded;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(60, TimeUnit.SECONDS);
+            }
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}